@@ -0,0 +1,199 @@
+package com.govscheme.portal.service;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Throughput and latency of request handling under a slow relay and slow Mongo, per execution mode:
+//   platform             - Tomcat's default, a pool of --platform-threads platform threads
+//   virtual              - a virtual thread per request, SMTP handed to SmtpExecutor's platform threads
+//   virtual-inline-smtp  - a virtual thread per request with SMTP run on it, as before SmtpExecutor
+// Each request makes one Mongo round trip (a blocking wait of --mongo-ms, which parks a virtual
+// thread just as the driver's socket read does) and --mail-ratio of them also send a welcome
+// email through EmailService to an in-process relay that takes --smtp-ms to accept each message.
+// --concurrency clients keep requests in flight; latency includes any wait for a free thread.
+// Carrier pinning is read back from a JFR recording of jdk.VirtualThreadPinned events, kept at --jfr.
+// Needs a Java 21 runtime for the virtual modes; bench/run-load.sh builds and runs all three.
+public class ExecutionModeLoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String mode = options.getOrDefault("mode", "virtual");
+        int requests = Integer.parseInt(options.getOrDefault("requests", "5000"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "1000"));
+        long mongoMillis = Long.parseLong(options.getOrDefault("mongo-ms", "20"));
+        long smtpMillis = Long.parseLong(options.getOrDefault("smtp-ms", "250"));
+        double mailRatio = Double.parseDouble(options.getOrDefault("mail-ratio", "0.1"));
+        int ioThreads = Integer.parseInt(options.getOrDefault("io-threads", "8"));
+        int platformThreads = Integer.parseInt(options.getOrDefault("platform-threads", "200"));
+        Path jfr = Path.of(options.getOrDefault("jfr", "target/load/" + mode + ".jfr"));
+
+        if (!List.of("platform", "virtual", "virtual-inline-smtp").contains(mode)) {
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+
+        try (FakeSmtpServer relay = new FakeSmtpServer()) {
+            relay.delayData(smtpMillis);
+
+            SmtpExecutor smtpExecutor = new SmtpExecutor();
+            ReflectionTestUtils.setField(smtpExecutor, "virtualThreads", mode.equals("virtual"));
+            ReflectionTestUtils.setField(smtpExecutor, "ioThreads", ioThreads);
+            smtpExecutor.start();
+            EmailService emailService = emailService(relay, smtpExecutor);
+
+            ExecutorService server = mode.equals("platform")
+                    ? Executors.newFixedThreadPool(platformThreads)
+                    : newVirtualThreadPerTaskExecutor();
+
+            long[] latencies = new long[requests];
+            AtomicInteger failures = new AtomicInteger();
+            Semaphore inFlight = new Semaphore(concurrency);
+            CountDownLatch done = new CountDownLatch(requests);
+
+            Recording recording = new Recording();
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+
+            long started = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                int request = i;
+                boolean sendsMail = ThreadLocalRandom.current().nextDouble() < mailRatio;
+                inFlight.acquire();
+                long submitted = System.nanoTime();
+                server.execute(() -> {
+                    try {
+                        Thread.sleep(mongoMillis);
+                        if (sendsMail) {
+                            emailService.sendWelcomeEmail("citizen" + request + "@example.com", "Citizen " + request);
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        latencies[request] = System.nanoTime() - submitted;
+                        inFlight.release();
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+            long elapsed = System.nanoTime() - started;
+
+            recording.stop();
+            Files.createDirectories(jfr.toAbsolutePath().getParent());
+            recording.dump(jfr);
+            recording.close();
+
+            server.shutdown();
+            server.awaitTermination(10, TimeUnit.SECONDS);
+            smtpExecutor.stop();
+
+            report(options, mode, requests, elapsed, latencies, failures.get(), relay.messages().size(), jfr);
+        }
+    }
+
+    private static void report(Map<String, String> options, String mode, int requests, long elapsedNanos,
+                               long[] latencies, int failures, int delivered, Path jfr) throws Exception {
+        Arrays.sort(latencies);
+        System.out.println("mode " + mode + " " + options);
+        System.out.printf("throughput %.1f req/s%n", requests / (elapsedNanos / 1e9));
+        System.out.printf("latency p50 %d ms, p99 %d ms, max %d ms%n",
+                millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.99)),
+                millis(latencies[latencies.length - 1]));
+        System.out.println("failures " + failures + ", mail delivered " + delivered);
+
+        // Grouped by the first application frame, or the top frame when the stack has none
+        Map<String, Integer> pinnedAt = new HashMap<>();
+        int pinned = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(jfr)) {
+            if (event.getEventType().getName().equals("jdk.VirtualThreadPinned")) {
+                pinnedAt.merge(frame(event), 1, Integer::sum);
+                pinned++;
+            }
+        }
+        System.out.println("pinned " + pinned + " (" + jfr + ")");
+        pinnedAt.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(5)
+                .forEach(entry -> System.out.println("  " + entry.getValue() + "  " + entry.getKey()));
+    }
+
+    private static String frame(RecordedEvent event) {
+        if (event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty()) {
+            return "(no stack)";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        RecordedFrame chosen = frames.get(0);
+        for (RecordedFrame frame : frames) {
+            if (frame.getMethod().getType().getName().startsWith("com.govscheme.")) {
+                chosen = frame;
+                break;
+            }
+        }
+        return chosen.getMethod().getType().getName() + "." + chosen.getMethod().getName() + ":" + chosen.getLineNumber();
+    }
+
+    private static EmailService emailService(FakeSmtpServer relay, SmtpExecutor smtpExecutor) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(relay.port());
+        Properties properties = new Properties();
+        properties.put("mail.smtp.connectiontimeout", "30000");
+        properties.put("mail.smtp.timeout", "30000");
+        mailSender.setJavaMailProperties(properties);
+
+        EmailService emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "mailSender", mailSender);
+        ReflectionTestUtils.setField(emailService, "fromEmail", "portal@example.com");
+        ReflectionTestUtils.setField(emailService, "appUrl", "http://localhost:3000");
+        ReflectionTestUtils.setField(emailService, "smtpExecutor", smtpExecutor);
+        emailService.bindTemplates();
+        return emailService;
+    }
+
+    // Looked up reflectively so bench/ still compiles at the default release 17
+    private static ExecutorService newVirtualThreadPerTaskExecutor() throws ReflectiveOperationException {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    // --name=value pairs
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int equals = arg.indexOf('=');
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# Runs ExecutionModeLoadHarness in each execution mode and checks the virtual-thread mode for
+# carrier pinning, two ways: the harness's own count of JFR jdk.VirtualThreadPinned events, and
+# the stacks -Djdk.tracePinnedThreads=short prints. Fails if the virtual mode pins at all.
+# Needs JDK 21 (from JDK 24 a monitor no longer pins, so there is nothing to find).
+# Extra arguments go to the harness, e.g.: bench/run-load.sh --smtp-ms=500 --requests=20000
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+if ! java -version 2>&1 | grep -q 'version "21'; then
+    echo "run-load.sh needs JDK 21 on the PATH" >&2
+    exit 2
+fi
+
+mvn -B -q -Pbench test-compile
+classpath="target/test-classes:target/classes:$(mvn -B -q -Pbench dependency:build-classpath \
+    -Dmdep.includeScope=test -Dmdep.outputFile=/dev/stdout)"
+mkdir -p target/load
+
+for mode in platform virtual virtual-inline-smtp; do
+    log="target/load/$mode.log"
+    java -cp "$classpath" -Djdk.tracePinnedThreads=short \
+        com.govscheme.portal.service.ExecutionModeLoadHarness \
+        --mode="$mode" --jfr="target/load/$mode.jfr" "$@" > "$log" 2>&1
+    echo "== $mode"
+    sed -n '/^throughput/,$p' "$log"
+    # tracePinnedThreads prints each distinct pinned stack once
+    echo "distinct stacks from tracePinnedThreads: $(grep -c '<== monitors' "$log" || true)"
+done
+
+pinned=$(awk '/^pinned/ { print $2 }' target/load/virtual.log)
+if [ "$pinned" != "0" ] || grep -q '<== monitors' target/load/virtual.log; then
+    echo "virtual mode pinned carrier threads; see target/load/virtual.log and virtual.jfr" >&2
+    exit 1
+fi
+echo "virtual mode: no pinning"
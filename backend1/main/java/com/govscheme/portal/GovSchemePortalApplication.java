@@ -1,10 +1,32 @@
 package com.govscheme.portal;
 
 import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationExcludeFilter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
 import org.springframework.scheduling.annotation.EnableAsync;
 
-@SpringBootApplication
+// With spring.threads.virtual.enabled=true on Java 21 (mvn -Pvirtual-threads), Boot serves requests
+// and runs @Async methods on virtual threads; SMTP sends then go through SmtpExecutor.
+// @SpringBootApplication spelled out so the scan can skip the reactive variant (mvn -Preactive),
+// whose sources and reactive Mongo starter would otherwise end up in this app as well.
+@SpringBootConfiguration
+@EnableAutoConfiguration(exclude = {
+        MongoReactiveAutoConfiguration.class,
+        MongoReactiveDataAutoConfiguration.class,
+        MongoReactiveRepositoriesAutoConfiguration.class
+})
+@ComponentScan(excludeFilters = {
+        @ComponentScan.Filter(type = FilterType.CUSTOM, classes = TypeExcludeFilter.class),
+        @ComponentScan.Filter(type = FilterType.CUSTOM, classes = AutoConfigurationExcludeFilter.class),
+        @ComponentScan.Filter(type = FilterType.REGEX, pattern = "com\\.govscheme\\.portal\\.reactive\\..*")
+})
 @EnableAsync
 public class GovSchemePortalApplication {
     public static void main(String[] args) {
@@ -0,0 +1,71 @@
+package com.govscheme.portal.config;
+
+import com.govscheme.portal.model.EligibilityRule;
+import com.govscheme.portal.model.EligibilityRuleGroup;
+import com.govscheme.portal.model.Scheme;
+import com.govscheme.portal.model.User;
+import com.govscheme.portal.service.AttributeDictionary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs the eligibility attributes of every loaded Scheme and User through AttributeDictionary,
+// so the index, caches and views hold one String instance per distinct value
+@Configuration
+public class AttributeEncodingConfig {
+
+    @Autowired
+    private AttributeDictionary attributeDictionary;
+
+    @Bean
+    public AfterConvertCallback<Scheme> schemeAttributeEncoder() {
+        return (scheme, document, collection) -> {
+            scheme.setEligibleStates(encode(AttributeDictionary.STATE, scheme.getEligibleStates()));
+            scheme.setEligibleDistricts(encode(AttributeDictionary.DISTRICT, scheme.getEligibleDistricts()));
+            scheme.setEligibleGenders(encode(AttributeDictionary.GENDER, scheme.getEligibleGenders()));
+            scheme.setEligibleCategories(encode(AttributeDictionary.CATEGORY, scheme.getEligibleCategories()));
+            scheme.setEligibleOccupations(encode(AttributeDictionary.OCCUPATION, scheme.getEligibleOccupations()));
+            if (scheme.getRuleGroups() != null) {
+                for (EligibilityRuleGroup group : scheme.getRuleGroups()) {
+                    if (group == null || group.getAnyOf() == null) {
+                        continue;
+                    }
+                    for (EligibilityRule rule : group.getAnyOf()) {
+                        if (rule != null && rule.getField() != null && attributeDictionary.of(rule.getField()) != null) {
+                            rule.setValues(encode(rule.getField(), rule.getValues()));
+                        }
+                    }
+                }
+            }
+            return scheme;
+        };
+    }
+
+    @Bean
+    public AfterConvertCallback<User> userAttributeEncoder() {
+        return (user, document, collection) -> {
+            user.setState(attributeDictionary.of(AttributeDictionary.STATE).intern(user.getState()));
+            user.setDistrict(attributeDictionary.of(AttributeDictionary.DISTRICT).intern(user.getDistrict()));
+            user.setGender(attributeDictionary.of(AttributeDictionary.GENDER).intern(user.getGender()));
+            user.setCategory(attributeDictionary.of(AttributeDictionary.CATEGORY).intern(user.getCategory()));
+            user.setOccupation(attributeDictionary.of(AttributeDictionary.OCCUPATION).intern(user.getOccupation()));
+            return user;
+        };
+    }
+
+    private List<String> encode(String field, List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        AttributeDictionary.Codes dictionary = attributeDictionary.of(field);
+        List<String> encoded = new ArrayList<>(values.size());
+        for (String value : values) {
+            encoded.add(value != null ? dictionary.decode(dictionary.encode(value)) : null);
+        }
+        return encoded;
+    }
+}
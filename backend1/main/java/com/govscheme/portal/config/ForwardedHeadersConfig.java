@@ -0,0 +1,31 @@
+package com.govscheme.portal.config;
+
+import org.apache.catalina.valves.RemoteIpValve;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Behind a reverse proxy the remote address is the proxy's, so take the client's from
+// X-Forwarded-For, but only on connections from a trusted proxy (app.proxy.trusted-proxies)
+@Configuration
+public class ForwardedHeadersConfig {
+
+    // Unset keeps the valve's own default
+    @Value("${app.proxy.trusted-proxies:#{null}}")
+    private String trustedProxies;
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> forwardedHeadersCustomizer() {
+        return factory -> {
+            RemoteIpValve valve = new RemoteIpValve();
+            if (trustedProxies != null) {
+                valve.setInternalProxies(trustedProxies);
+            }
+            valve.setRemoteIpHeader("X-Forwarded-For");
+            valve.setProtocolHeader("X-Forwarded-Proto");
+            factory.addEngineValves(valve);
+        };
+    }
+}
@@ -3,8 +3,12 @@ package com.govscheme.portal.controller;
 import com.govscheme.portal.dto.AuthRequest;
 import com.govscheme.portal.dto.AuthResponse;
 import com.govscheme.portal.dto.RegisterRequest;
+import com.govscheme.portal.service.AdmissionRejectedException;
 import com.govscheme.portal.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,44 +23,62 @@ public class AuthController {
     private AuthService authService;
     
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
+    public ResponseEntity<?> register(@RequestBody RegisterRequest request, HttpServletRequest httpRequest) {
         try {
-            AuthResponse response = authService.register(request);
+            AuthResponse response = authService.register(request, httpRequest.getRemoteAddr());
             return ResponseEntity.ok(response);
+        } catch (AdmissionRejectedException e) {
+            return rejected(e);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
     
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody AuthRequest request) {
+    public ResponseEntity<?> login(@RequestBody AuthRequest request, HttpServletRequest httpRequest) {
         try {
-            AuthResponse response = authService.login(request);
+            AuthResponse response = authService.login(request, httpRequest.getRemoteAddr());
             return ResponseEntity.ok(response);
+        } catch (AdmissionRejectedException e) {
+            return rejected(e);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
     
     @PostMapping("/verify-otp")
-    public ResponseEntity<?> verifyOtp(@RequestBody Map<String, String> request) {
+    public ResponseEntity<?> verifyOtp(@RequestBody Map<String, String> request, HttpServletRequest httpRequest) {
         try {
             String email = request.get("email");
             String otp = request.get("otp");
-            AuthResponse response = authService.verifyOtp(email, otp);
+            AuthResponse response = authService.verifyOtp(email, otp, httpRequest.getRemoteAddr());
             return ResponseEntity.ok(response);
+        } catch (AdmissionRejectedException e) {
+            return rejected(e);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
     
     @PostMapping("/resend-otp")
-    public ResponseEntity<?> resendOtp(@RequestBody Map<String, String> request) {
+    public ResponseEntity<?> resendOtp(@RequestBody Map<String, String> request, HttpServletRequest httpRequest) {
         try {
-            authService.resendOtp(request.get("email"));
+            authService.resendOtp(request.get("email"), httpRequest.getRemoteAddr());
             return ResponseEntity.ok(Map.of("message", "OTP resent successfully"));
+        } catch (AdmissionRejectedException e) {
+            return rejected(e);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+    
+    // 503 when the password hashing pool is saturated, 429 when this email or client is over its rate
+    private ResponseEntity<?> rejected(AdmissionRejectedException e) {
+        HttpStatus status = e.getReason() == AdmissionRejectedException.Reason.OVERLOADED
+                ? HttpStatus.SERVICE_UNAVAILABLE
+                : HttpStatus.TOO_MANY_REQUESTS;
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
 }
@@ -0,0 +1,90 @@
+package com.govscheme.portal.controller;
+
+import com.govscheme.portal.dto.AuthAdmissionStats;
+import com.govscheme.portal.dto.BackgroundTaskStats;
+import com.govscheme.portal.dto.CacheStats;
+import com.govscheme.portal.dto.MailPoolStats;
+import com.govscheme.portal.security.JwtUtil;
+import com.govscheme.portal.security.LoginRateLimiter;
+import com.govscheme.portal.security.UserDetailsCache;
+import com.govscheme.portal.service.BackgroundFailures;
+import com.govscheme.portal.service.EligibilityCache;
+import com.govscheme.portal.service.EmailService;
+import com.govscheme.portal.service.PasswordHasher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/metrics")
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasRole('ADMIN')")
+public class MetricsController {
+    
+    @Autowired
+    private EmailService emailService;
+    
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Autowired
+    private EligibilityCache eligibilityCache;
+    
+    @Autowired
+    private PasswordHasher passwordHasher;
+    
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+    
+    @Autowired
+    private BackgroundFailures backgroundFailures;
+    
+    @GetMapping("/mail")
+    public ResponseEntity<MailPoolStats> getMailPoolStats() {
+        return ResponseEntity.ok(emailService.getMailPoolStats());
+    }
+    
+    @GetMapping("/user-details-cache")
+    public ResponseEntity<CacheStats> getUserDetailsCacheStats() {
+        return ResponseEntity.ok(userDetailsCache.getStats());
+    }
+    
+    @GetMapping("/verified-token-cache")
+    public ResponseEntity<CacheStats> getVerifiedTokenCacheStats() {
+        return ResponseEntity.ok(jwtUtil.getVerifiedTokenCacheStats());
+    }
+    
+    @GetMapping("/eligibility-cache")
+    public ResponseEntity<CacheStats> getEligibilityCacheStats() {
+        return ResponseEntity.ok(eligibilityCache.getStats());
+    }
+    
+    @GetMapping("/auth")
+    public ResponseEntity<AuthAdmissionStats> getAuthAdmissionStats() {
+        return ResponseEntity.ok(new AuthAdmissionStats(
+                passwordHasher.getMaxConcurrency(),
+                passwordHasher.getQueueCapacity(),
+                passwordHasher.getActive(),
+                passwordHasher.getQueued(),
+                passwordHasher.getCompleted(),
+                passwordHasher.getAverageMillis(),
+                passwordHasher.getMaxMillis(),
+                passwordHasher.getShed(),
+                loginRateLimiter.getLimitedByEmail(),
+                loginRateLimiter.getLimitedByIp(),
+                loginRateLimiter.getTrackedEmails(),
+                loginRateLimiter.getTrackedIps()
+        ));
+    }
+    
+    @GetMapping("/background")
+    public ResponseEntity<List<BackgroundTaskStats>> getBackgroundTaskStats() {
+        return ResponseEntity.ok(backgroundFailures.getStats());
+    }
+}
@@ -1,12 +1,30 @@
 package com.govscheme.portal.controller;
 
+import com.govscheme.portal.dto.CatalogChanges;
+import com.govscheme.portal.dto.SchemeFilter;
+import com.govscheme.portal.dto.SchemeFilterResult;
+import com.govscheme.portal.dto.SchemeSearchResult;
+import com.govscheme.portal.dto.Suggestion;
+import com.govscheme.portal.model.NotificationJob;
 import com.govscheme.portal.model.Scheme;
+import com.govscheme.portal.security.JwtUtil;
+import com.govscheme.portal.service.CatalogSnapshots;
+import com.govscheme.portal.service.EligibilityIndex;
 import com.govscheme.portal.service.SchemeService;
+import com.govscheme.portal.service.SchemeTransfer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -18,29 +36,116 @@ public class SchemeController {
     @Autowired
     private SchemeService schemeService;
     
+    // Listing responses only change with the catalog version, so they carry it as an ETag and a
+    // client revalidating with If-None-Match gets a bodiless 304 until the next change. The tag is
+    // weak because the same version is served gzipped or identity-encoded, which are different
+    // bytes; If-None-Match compares weakly, so W/"catalog-N" and "catalog-N" both still match.
     @GetMapping("/public/all")
-    public ResponseEntity<List<Scheme>> getAllSchemes() {
-        return ResponseEntity.ok(schemeService.getAllActiveSchemes());
+    public ResponseEntity<?> getAllSchemes(WebRequest request,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String etag = listingETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        CatalogSnapshots.Payload snapshot = schemeService.getActiveSchemesSnapshot();
+        if (snapshot != null) {
+            return snapshotResponse(snapshot, acceptEncoding);
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+                .body(schemeService.getAllActiveSchemes());
+    }
+    
+    @GetMapping("/public/list")
+    public ResponseEntity<?> listSchemes(@RequestParam(required = false) String category,
+                                         @RequestParam(defaultValue = "name") String sort,
+                                         @RequestParam(defaultValue = "asc") String direction,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "20") int size,
+                                         WebRequest request) {
+        try {
+            String etag = schemeService.getCatalogETag();
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+                    .body(schemeService.listSchemes(category, sort, direction, cursor, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
     
     @GetMapping("/public/{id}")
     public ResponseEntity<Scheme> getSchemeById(@PathVariable String id) {
-        return ResponseEntity.ok(schemeService.getSchemeById(id));
+        Scheme scheme = schemeService.getSchemeById(id);
+        schemeService.recordSchemeView(id);
+        return ResponseEntity.ok(scheme);
     }
     
     @GetMapping("/eligible/{userId}")
-    public ResponseEntity<List<Scheme>> getEligibleSchemes(@PathVariable String userId) {
+    public ResponseEntity<?> getEligibleSchemes(@PathVariable String userId, HttpServletRequest request) {
+        if (!JwtUtil.isSelfOrAdmin(request, userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not allowed for this user"));
+        }
         return ResponseEntity.ok(schemeService.getEligibleSchemes(userId));
     }
     
+    // NDJSON in, NDJSON out: one EligibilityProfile per line, one result per line in the same order.
+    // Results are streamed as they are computed, so the response starts before the upload ends.
+    // The whole batch is evaluated against one catalog, the version in X-Catalog-Version.
+    // Lines that cannot be answered get an error result; a last record with no line number
+    // means the batch stopped early.
+    // PARTNER is granted through PUT /api/users/admin/{id}/roles.
+    @PostMapping("/eligibility/batch")
+    @PreAuthorize("hasAnyRole('ADMIN','PARTNER')")
+    public void evaluateEligibilityBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        EligibilityIndex snapshot = schemeService.getEligibilitySnapshot();
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("X-Catalog-Version", String.valueOf(snapshot.catalogVersion()));
+        schemeService.evaluateEligibilityBatch(snapshot, request.getInputStream(), response.getOutputStream());
+    }
+    
     @GetMapping("/public/category/{category}")
-    public ResponseEntity<List<Scheme>> getSchemesByCategory(@PathVariable String category) {
-        return ResponseEntity.ok(schemeService.getSchemesByCategory(category));
+    public ResponseEntity<?> getSchemesByCategory(@PathVariable String category, WebRequest request,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String etag = listingETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        CatalogSnapshots.Payload snapshot = schemeService.getCategorySnapshot(category);
+        if (snapshot != null) {
+            return snapshotResponse(snapshot, acceptEncoding);
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+                .body(schemeService.getSchemesByCategory(category));
+    }
+    
+    @GetMapping("/public/changes")
+    public ResponseEntity<CatalogChanges> getChanges(@RequestParam(defaultValue = "0") long since, WebRequest request) {
+        String etag = schemeService.getCatalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+                .body(schemeService.getChangesSince(since));
     }
     
     @GetMapping("/public/search")
-    public ResponseEntity<List<Scheme>> searchSchemes(@RequestParam String query) {
-        return ResponseEntity.ok(schemeService.searchSchemes(query));
+    public ResponseEntity<SchemeSearchResult> searchSchemes(@RequestParam String query,
+                                                            @RequestParam(defaultValue = "0") int page,
+                                                            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(schemeService.searchSchemes(query, page, size));
+    }
+    
+    @PostMapping("/public/filter")
+    public ResponseEntity<SchemeFilterResult> filterSchemes(@RequestBody SchemeFilter filter) {
+        return ResponseEntity.ok(schemeService.filterSchemes(filter));
+    }
+    
+    @GetMapping("/public/suggest")
+    public ResponseEntity<List<Suggestion>> suggest(@RequestParam String prefix,
+                                                    @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(schemeService.suggest(prefix, limit));
     }
     
     @PostMapping("/admin/create")
@@ -48,12 +153,60 @@ public class SchemeController {
     public ResponseEntity<?> createScheme(@RequestBody Scheme scheme) {
         try {
             Scheme createdScheme = schemeService.createScheme(scheme);
-            return ResponseEntity.ok(createdScheme);
+            NotificationJob job = schemeService.notifyEligibleUsers(createdScheme);
+            return ResponseEntity.ok(Map.of("scheme", createdScheme, "notificationJobId", job.getId()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/admin/notifications/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getNotificationProgress(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(schemeService.getNotificationProgress(jobId));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
     
+    @PostMapping("/admin/eligibility/verify")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> verifyEligibilityViews(@RequestParam(defaultValue = "false") boolean repair) {
+        try {
+            return ResponseEntity.ok(schemeService.verifyEligibilityViews(repair));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Body is NDJSON or CSV (format, else taken from the Content-Type); created schemes are
+    // announced in one notification pass unless notify=false
+    @PostMapping("/admin/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importSchemes(HttpServletRequest request,
+                                           @RequestParam(required = false) String format,
+                                           @RequestParam(defaultValue = "true") boolean notify) {
+        try {
+            return ResponseEntity.ok(schemeService.importSchemes(request.getInputStream(),
+                    transferFormat(format, request.getContentType()), notify));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/admin/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportSchemes(@RequestParam(defaultValue = SchemeTransfer.NDJSON) String format,
+                              HttpServletResponse response) throws IOException {
+        String transferFormat = transferFormat(format, null);
+        boolean csv = SchemeTransfer.CSV.equals(transferFormat);
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"schemes." + transferFormat + "\"");
+        schemeService.exportSchemes(response.getOutputStream(), transferFormat);
+    }
+    
     @PutMapping("/admin/update/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> updateScheme(@PathVariable String id, @RequestBody Scheme scheme) {
@@ -75,4 +228,67 @@ public class SchemeController {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+    
+    private static String transferFormat(String format, String contentType) {
+        if (format != null && !format.isBlank()) {
+            return format.strip().toLowerCase();
+        }
+        return contentType != null && contentType.startsWith("text/csv") ? SchemeTransfer.CSV : SchemeTransfer.NDJSON;
+    }
+    
+    private String listingETag() {
+        return "W/" + schemeService.getCatalogETag();
+    }
+
+    // Writes a pre-serialized catalog snapshot as-is, gzipped when the client accepts it. The
+    // snapshot can be a little newer than the cached version the request was checked against,
+    // so it is tagged with its own version.
+    private ResponseEntity<byte[]> snapshotResponse(CatalogSnapshots.Payload snapshot, String acceptEncoding) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag("W/\"catalog-" + snapshot.getVersion() + "\"")
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (prefersGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzip());
+        }
+        return response.body(snapshot.getIdentity());
+    }
+    
+    // Accept-Encoding with q-values: gzip (or x-gzip, or *) must not be q=0, and must not rank
+    // below an explicitly listed identity. A coding listed by name overrides *.
+    private static boolean prefersGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        double gzip = -1;
+        double identity = -1;
+        double any = -1;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].strip().toLowerCase();
+            double q = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].strip();
+                if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                    try {
+                        q = Double.parseDouble(parameter.substring(2).strip());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case "gzip", "x-gzip" -> gzip = Math.max(gzip, q);
+                case "identity" -> identity = q;
+                case "*" -> any = q;
+                default -> {
+                }
+            }
+        }
+        if (gzip < 0) {
+            gzip = any;
+        }
+        return gzip > 0 && gzip >= identity;
+    }
 }
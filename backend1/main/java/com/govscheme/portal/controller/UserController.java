@@ -1,31 +1,57 @@
 package com.govscheme.portal.controller;
 
+import com.govscheme.portal.dto.UserProfile;
+import com.govscheme.portal.dto.UserProfilePatch;
+import com.govscheme.portal.event.UserProfileChangedEvent;
 import com.govscheme.portal.model.User;
 import com.govscheme.portal.repository.UserRepository;
+import com.govscheme.portal.security.JwtUtil;
+import com.govscheme.portal.security.UserDetailsCache;
+import com.govscheme.portal.service.UserOnboarding;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/users")
 @CrossOrigin(origins = "*")
 public class UserController {
 
+    private static final Set<String> ASSIGNABLE_ROLES = Set.of("USER", "PARTNER", "ADMIN");
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private UserOnboarding userOnboarding;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+
     @GetMapping("/{id}")
-    public ResponseEntity<?> getUserById(@PathVariable String id) {
+    public ResponseEntity<?> getUserById(@PathVariable String id, HttpServletRequest request) {
+        if (!JwtUtil.isSelfOrAdmin(request, id)) {
+            return forbidden();
+        }
         try {
             User user = userRepository.findById(id)
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
             // Remove sensitive data
             user.setPassword(null);
-            user.setEmailOtp(null);
-            user.setEmailOtpExpiry(null);
 
             return ResponseEntity.ok(user);
         } catch (Exception e) {
@@ -34,12 +60,25 @@ public class UserController {
     }
 
 
+    // Fields left null keep their stored values. The save is conditional on the version read
+    // here (and on If-Match, when sent), so a concurrent edit gets a 409 instead of being overwritten.
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateUser(@PathVariable String id, @RequestBody User userUpdate) {
+    public ResponseEntity<?> updateUser(@PathVariable String id, @RequestBody User userUpdate,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                        HttpServletRequest request) {
+        if (!JwtUtil.isSelfOrAdmin(request, id)) {
+            return forbidden();
+        }
         try {
             User user = userRepository.findById(id)
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
+            long readVersion = user.getVersion() != null ? user.getVersion() : 0L;
+            Long expectedVersion = parseVersion(ifMatch);
+            if (expectedVersion != null && expectedVersion != readVersion) {
+                return conflict();
+            }
+
             // Update allowed fields
             if (userUpdate.getFirstName() != null) user.setFirstName(userUpdate.getFirstName());
             if (userUpdate.getLastName() != null) user.setLastName(userUpdate.getLastName());
@@ -52,12 +91,130 @@ public class UserController {
             if (userUpdate.getCategory() != null) user.setCategory(userUpdate.getCategory());
             if (userUpdate.getGender() != null) user.setGender(userUpdate.getGender());
 
-            User updatedUser = userRepository.save(user);
-            updatedUser.setPassword(null);
+            user.setVersion(readVersion + 1);
+            if (!userRepository.replaceIfVersion(user, readVersion)) {
+                return conflict();
+            }
+            eventPublisher.publishEvent(new UserProfileChangedEvent(user));
+            user.setPassword(null);
+
+            return ResponseEntity.ok()
+                    .eTag("\"" + user.getVersion() + "\"")
+                    .body(user);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Changes only the fields sent, in one atomic update. Pass the version from the last read
+    // (in the body, or as If-Match with the ETag) to get a 409 instead of overwriting a
+    // concurrent edit.
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchUser(@PathVariable String id, @RequestBody UserProfilePatch patch,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                       HttpServletRequest request) {
+        if (!JwtUtil.isSelfOrAdmin(request, id)) {
+            return forbidden();
+        }
+        try {
+            Map<String, Object> changes = new HashMap<>();
+            putIfPresent(changes, "firstName", patch.getFirstName());
+            putIfPresent(changes, "lastName", patch.getLastName());
+            putIfPresent(changes, "phoneNumber", patch.getPhoneNumber());
+            putIfPresent(changes, "age", patch.getAge());
+            putIfPresent(changes, "state", patch.getState());
+            putIfPresent(changes, "district", patch.getDistrict());
+            putIfPresent(changes, "occupation", patch.getOccupation());
+            putIfPresent(changes, "annualIncome", patch.getAnnualIncome());
+            putIfPresent(changes, "category", patch.getCategory());
+            putIfPresent(changes, "gender", patch.getGender());
+            if (changes.isEmpty()) {
+                throw new RuntimeException("No profile fields to update");
+            }
+
+            Long expectedVersion = patch.getVersion() != null ? patch.getVersion() : parseVersion(ifMatch);
+            User updatedUser = userRepository.patchProfile(id, changes, expectedVersion);
+            if (updatedUser == null) {
+                if (!userRepository.existsById(id)) {
+                    throw new RuntimeException("User not found");
+                }
+                return conflict();
+            }
+
+            eventPublisher.publishEvent(new UserProfileChangedEvent(updatedUser));
+            return ResponseEntity.ok()
+                    .eTag("\"" + updatedUser.getVersion() + "\"")
+                    .body(UserProfile.of(updatedUser));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // CSV body with a header row; see UserOnboarding for the columns
+    @PostMapping("/admin/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importUsers(HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(userOnboarding.importUsers(request.getInputStream()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 
-            return ResponseEntity.ok(updatedUser);
+    // Replaces a user's roles, e.g. ["USER", "PARTNER"] for a district office or CSC operator
+    // account that runs batch eligibility checks. Takes effect on the user's next request
+    // (on their next login with jwt.stateless).
+    @PutMapping("/admin/{id}/roles")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateRoles(@PathVariable String id, @RequestBody Set<String> roles) {
+        try {
+            if (roles == null || roles.isEmpty()) {
+                throw new RuntimeException("At least one role is required");
+            }
+            for (String role : roles) {
+                if (!ASSIGNABLE_ROLES.contains(role)) {
+                    throw new RuntimeException("Unknown role: " + role);
+                }
+            }
+            User updatedUser = userRepository.updateRoles(id, roles);
+            if (updatedUser == null) {
+                throw new RuntimeException("User not found");
+            }
+            userDetailsCache.invalidate(updatedUser.getEmail());
+            return ResponseEntity.ok(Map.of("id", id, "roles", updatedUser.getRoles()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+
+    // Users reach only their own record, identified by the userId claim of their token
+    private static ResponseEntity<?> forbidden() {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not allowed for this user"));
+    }
+
+    private static ResponseEntity<?> conflict() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "Profile was changed elsewhere. Reload it and try again."));
+    }
+
+    private static void putIfPresent(Map<String, Object> changes, String field, Object value) {
+        if (value != null) {
+            changes.put(field, value);
+        }
+    }
+
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        String tag = ifMatch.strip();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.parseLong(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid If-Match header");
+        }
+    }
 }
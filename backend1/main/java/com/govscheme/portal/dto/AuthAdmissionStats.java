@@ -0,0 +1,23 @@
+package com.govscheme.portal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthAdmissionStats {
+    private Integer hashConcurrency;
+    private Integer hashQueueCapacity;
+    private Integer activeHashes;
+    private Integer queuedHashes;
+    private Long hashesCompleted;
+    private Double averageHashMs;
+    private Double maxHashMs;
+    private Long shedOverloaded;
+    private Long rateLimitedByEmail;
+    private Long rateLimitedByIp;
+    private Integer trackedEmails;
+    private Integer trackedIps;
+}
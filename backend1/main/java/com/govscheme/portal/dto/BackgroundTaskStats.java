@@ -0,0 +1,17 @@
+package com.govscheme.portal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackgroundTaskStats {
+    private String task;
+    private Long failures;
+    private LocalDateTime lastFailureAt;
+    private String lastError;
+}
@@ -0,0 +1,23 @@
+package com.govscheme.portal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStats {
+    private String name;
+    private Integer size;
+    private Integer maxSize;
+    private Long hits;
+    private Long misses;
+    private Long evictions;
+    private Double hitRate;
+    
+    public static CacheStats of(String name, int size, int maxSize, long hits, long misses, long evictions) {
+        long lookups = hits + misses;
+        return new CacheStats(name, size, maxSize, hits, misses, evictions, lookups > 0 ? (double) hits / lookups : 0.0);
+    }
+}
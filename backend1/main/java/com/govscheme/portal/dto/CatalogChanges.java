@@ -0,0 +1,18 @@
+package com.govscheme.portal.dto;
+
+import com.govscheme.portal.model.Scheme;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChanges {
+    private Long since;
+    private Long version; // Pass as `since` on the next call
+    private List<Scheme> upserted; // Active schemes created or changed after `since`
+    private List<String> deactivated; // Ids of schemes deactivated after `since`
+}
@@ -0,0 +1,20 @@
+package com.govscheme.portal.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// One output line per input line: the eligible scheme ids, or why the line was rejected
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EligibilityBatchResult {
+    private Long line;
+    private String ref;
+    private List<String> schemeIds;
+    private String error;
+}
@@ -0,0 +1,19 @@
+package com.govscheme.portal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EligibilityConsistencyReport {
+    private Long checkedUsers;
+    private Long missingViews;
+    private Long mismatchedViews;
+    private Boolean repaired;
+    private List<String> sampleMismatchedUserIds;
+    private Long durationMs;
+}
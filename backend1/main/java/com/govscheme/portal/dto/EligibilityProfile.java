@@ -0,0 +1,20 @@
+package com.govscheme.portal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One citizen profile in a batch eligibility request; ref is the caller's own identifier
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EligibilityProfile {
+    private String ref;
+    private Integer age;
+    private String state;
+    private String district;
+    private String gender;
+    private String category;
+    private String occupation;
+    private Double annualIncome;
+}
@@ -0,0 +1,33 @@
+package com.govscheme.portal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailPoolStats {
+    private Boolean enabled;
+    private Integer maxSize;
+    private Integer open;
+    private Integer idle;
+    private Integer bulkThreshold;
+    private List<Connection> connections;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Connection {
+        private Integer id;
+        private Boolean connected;
+        private Long messagesSent;
+        private Long failures;
+        private Long sessionsOpened;
+        private Double messagesPerSecond;
+        private LocalDateTime createdAt;
+    }
+}
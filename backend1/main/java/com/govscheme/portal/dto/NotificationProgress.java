@@ -0,0 +1,24 @@
+package com.govscheme.portal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationProgress {
+    private String jobId;
+    private String schemeId;
+    private String status;
+    private Long totalRecipients;
+    private Long pending;
+    private Long sending;
+    private Long sent;
+    private Long failed;
+    private Double sendsPerSecond;
+    private LocalDateTime createdAt;
+    private LocalDateTime lastSentAt;
+}
@@ -0,0 +1,18 @@
+package com.govscheme.portal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.Set;
+
+// Outcome of SchemeRepository.bulkSave by position in the batch: the error for each failed row,
+// and which of the written rows created a document; every other written row updated one
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchemeBulkSaveResult {
+    private Map<Integer, String> failures;
+    private Set<Integer> inserted;
+}
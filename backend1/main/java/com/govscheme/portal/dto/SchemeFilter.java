@@ -0,0 +1,25 @@
+package com.govscheme.portal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Partial profile or filter set for /api/schemes/public/filter. Null, blank and "All" mean no filter.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchemeFilter {
+    private String query;
+    private String category; // Scheme category: Education, Health, ...
+    private String state;
+    private String district;
+    private String gender;
+    private String socialCategory; // SC, ST, OBC, General
+    private String occupation;
+    private Integer age; // Exact age: minAge <= age <= maxAge
+    private Integer minAge; // Age range overlapping the scheme's range
+    private Integer maxAge;
+    private Double annualIncome;
+    private Integer limit; // How many matching schemes to return as summaries (ids are always complete)
+    private Integer offset; // Position of the first summary in the name-ordered matches
+}
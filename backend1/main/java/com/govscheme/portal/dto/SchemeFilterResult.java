@@ -0,0 +1,19 @@
+package com.govscheme.portal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchemeFilterResult {
+    private Integer total;
+    private List<String> schemeIds;
+    private List<SchemeSummary> schemes;
+    // facet -> value -> matching schemes, each counted with every filter except its own facet's
+    private Map<String, Map<String, Integer>> facets;
+}
@@ -0,0 +1,20 @@
+package com.govscheme.portal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchemeImportReport {
+    private Long records;
+    private Long created;
+    private Long updated;
+    private Long failed;
+    private List<ImportError> errors; // First failures only; see failed for the total
+    private List<String> notificationJobIds;
+    private Long durationMs;
+}
@@ -0,0 +1,18 @@
+package com.govscheme.portal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchemePage {
+    private List<SchemeSummary> schemes;
+    private String sort;
+    private String direction;
+    private Integer size;
+    private String nextCursor; // null on the last page
+}
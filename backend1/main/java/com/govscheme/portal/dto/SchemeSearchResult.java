@@ -0,0 +1,19 @@
+package com.govscheme.portal.dto;
+
+import com.govscheme.portal.model.Scheme;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchemeSearchResult {
+    private String query;
+    private Integer page;
+    private Integer size;
+    private Integer total;
+    private List<Scheme> schemes;
+}
@@ -0,0 +1,54 @@
+package com.govscheme.portal.dto;
+
+import com.govscheme.portal.model.Scheme;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Listing view of a scheme: what the scheme cards show. The full document is served by
+// /api/schemes/public/{id}
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchemeSummary {
+    // Document fields backing the summary, for projections
+    public static final List<String> FIELDS = List.of(
+            "name", "shortDescription", "category", "department", "benefits", "minAge", "maxAge",
+            "maxIncome", "officialWebsite", "requiredDocuments", "applicationDeadline", "imageUrl"
+    );
+
+    private String id;
+    private String name;
+    private String shortDescription;
+    private String category;
+    private String department;
+    private List<String> benefits;
+    private Integer minAge;
+    private Integer maxAge;
+    private Double maxIncome;
+    private String officialWebsite;
+    private List<String> requiredDocuments;
+    private LocalDate applicationDeadline;
+    private String imageUrl;
+
+    public static SchemeSummary of(Scheme scheme) {
+        return new SchemeSummary(
+                scheme.getId(),
+                scheme.getName(),
+                scheme.getShortDescription(),
+                scheme.getCategory(),
+                scheme.getDepartment(),
+                scheme.getBenefits(),
+                scheme.getMinAge(),
+                scheme.getMaxAge(),
+                scheme.getMaxIncome(),
+                scheme.getOfficialWebsite(),
+                scheme.getRequiredDocuments(),
+                scheme.getApplicationDeadline(),
+                scheme.getImageUrl()
+        );
+    }
+}
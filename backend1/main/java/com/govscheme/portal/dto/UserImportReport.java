@@ -0,0 +1,19 @@
+package com.govscheme.portal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportReport {
+    private Long records;
+    private Long created;
+    private Long failed;
+    private List<ImportError> errors; // First failures only; see failed for the total
+    private Long durationMs;
+    private Double usersPerSecond;
+}
@@ -0,0 +1,37 @@
+package com.govscheme.portal.dto;
+
+import com.govscheme.portal.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A user as shown to the user: no password hash or roles
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserProfile {
+    private String id;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private String phoneNumber;
+    private Integer age;
+    private String state;
+    private String district;
+    private String occupation;
+    private Double annualIncome;
+    private String category;
+    private String gender;
+    private Boolean isEmailVerified;
+    private LocalDateTime updatedAt;
+    private Long version;
+    
+    public static UserProfile of(User user) {
+        return new UserProfile(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                user.getPhoneNumber(), user.getAge(), user.getState(), user.getDistrict(), user.getOccupation(),
+                user.getAnnualIncome(), user.getCategory(), user.getGender(), user.getIsEmailVerified(),
+                user.getUpdatedAt(), user.getVersion() != null ? user.getVersion() : 0L);
+    }
+}
@@ -0,0 +1,23 @@
+package com.govscheme.portal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Profile fields to change (null = leave as is), and the version the client last read
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserProfilePatch {
+    private String firstName;
+    private String lastName;
+    private String phoneNumber;
+    private Integer age;
+    private String state;
+    private String district;
+    private String occupation;
+    private Double annualIncome;
+    private String category;
+    private String gender;
+    private Long version;
+}
@@ -0,0 +1,15 @@
+package com.govscheme.portal.event;
+
+import com.govscheme.portal.model.Scheme;
+import com.govscheme.portal.service.EligibilityProgram;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Published after a scheme is created, updated or soft-deleted; carries the saved document and
+// its rule-group program as compiled on save (null if it has none), so listeners need not recompile
+@Data
+@AllArgsConstructor
+public class SchemeChangedEvent {
+    private Scheme scheme;
+    private EligibilityProgram rules;
+}
@@ -0,0 +1,12 @@
+package com.govscheme.portal.event;
+
+import com.govscheme.portal.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Published after a user's profile fields are updated; carries the saved document
+@Data
+@AllArgsConstructor
+public class UserProfileChangedEvent {
+    private User user;
+}
@@ -0,0 +1,19 @@
+package com.govscheme.portal.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Named sequence, advanced atomically with $inc
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "counters")
+public class Counter {
+    @Id
+    private String id;
+    
+    private Long seq = 0L;
+}
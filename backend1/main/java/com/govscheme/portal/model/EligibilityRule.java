@@ -0,0 +1,21 @@
+package com.govscheme.portal.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// One condition on a user field, embedded in a scheme's rule groups
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EligibilityRule {
+    private String field; // age, annualIncome, state, district, gender, category, occupation
+    
+    private String operator; // in, notIn (text fields); gte, lte (age, annualIncome)
+    
+    private List<String> values; // For in / notIn
+    
+    private Double value; // For gte / lte
+}
@@ -0,0 +1,16 @@
+package com.govscheme.portal.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Passes when any of its rules passes; a scheme requires every one of its groups to pass
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EligibilityRuleGroup {
+    private List<EligibilityRule> anyOf = new ArrayList<>();
+}
@@ -0,0 +1,26 @@
+package com.govscheme.portal.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Pending email verification code, one per email. Kept off the users collection so issuing and
+// checking codes never rewrites a user; Mongo's TTL monitor deletes expired codes.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "email_otps")
+public class EmailOtp {
+    @Id
+    private String email;
+    
+    private String otp;
+    
+    private Integer attempts = 0;
+    
+    private LocalDateTime expiresAt;
+}
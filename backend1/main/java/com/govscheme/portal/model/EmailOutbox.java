@@ -0,0 +1,50 @@
+package com.govscheme.portal.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "email_outbox")
+public class EmailOutbox {
+    @Id
+    private String id;
+    
+    private String jobId;
+    
+    private String schemeId;
+    
+    private String toEmail;
+    
+    private String userName;
+    
+    private Status status = Status.PENDING;
+    
+    private Integer attempts = 0;
+    
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+    
+    // Worker currently holding the message and until when; an expired lease can be reclaimed
+    private String leaseOwner;
+    
+    private LocalDateTime leaseExpiresAt;
+    
+    private String lastError;
+    
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    private LocalDateTime sentAt;
+    
+    public enum Status {
+        PENDING,
+        SENDING,
+        SENT,
+        FAILED
+    }
+}
@@ -0,0 +1,35 @@
+package com.govscheme.portal.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "notification_jobs")
+public class NotificationJob {
+    @Id
+    private String id;
+    
+    private String schemeId;
+    
+    private String schemeName;
+    
+    private Status status = Status.ENQUEUING;
+    
+    private Long totalRecipients = 0L;
+    
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    private LocalDateTime enqueuedAt;
+    
+    public enum Status {
+        ENQUEUING,
+        ENQUEUED
+    }
+}
@@ -49,6 +49,10 @@ public class Scheme {
     
     private List<String> eligibleOccupations; // Farmer, Student, etc. (empty means all)
     
+    private List<String> eligibleDistricts; // Empty list means all districts
+    
+    private List<EligibilityRuleGroup> ruleGroups; // Extra conditions beyond the fields above (null means none)
+    
     private String applicationProcess;
     
     private List<String> requiredDocuments;
@@ -61,6 +65,8 @@ public class Scheme {
     
     private LocalDateTime updatedAt = LocalDateTime.now();
     
+    private Long catalogVersion; // Catalog version of the last change to this scheme
+    
     private String imageUrl;
     
     private String pdfUrl;
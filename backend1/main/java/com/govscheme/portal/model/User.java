@@ -46,10 +46,6 @@ public class User {
     
     private Boolean isEmailVerified = false;
     
-    private String emailOtp;
-    
-    private LocalDateTime emailOtpExpiry;
-    
     private Boolean isFirstLogin = true;
     
     private Set<String> roles = new HashSet<>();
@@ -59,4 +55,8 @@ public class User {
     private LocalDateTime updatedAt = LocalDateTime.now();
     
     private Boolean isActive = true;
+    
+    // Bumped on every profile change and checked by PATCH; maintained by hand rather than with
+    // @Version, which would turn saves of documents written before this field into inserts
+    private Long version = 0L;
 }
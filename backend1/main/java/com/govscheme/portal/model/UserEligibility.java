@@ -0,0 +1,25 @@
+package com.govscheme.portal.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+// Materialized eligibility of one user: the ids of the active schemes they qualify for
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "user_eligibility")
+public class UserEligibility {
+    @Id
+    private String userId;
+    
+    private Set<String> schemeIds = new HashSet<>();
+    
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
@@ -0,0 +1,9 @@
+package com.govscheme.portal.repository;
+
+import com.govscheme.portal.model.EmailOtp;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EmailOtpRepository extends MongoRepository<EmailOtp, String>, EmailOtpRepositoryCustom {
+}
@@ -0,0 +1,9 @@
+package com.govscheme.portal.repository;
+
+import com.govscheme.portal.model.EmailOtp;
+
+public interface EmailOtpRepositoryCustom {
+    boolean consume(String email, String otp);
+    
+    EmailOtp reserveAttempt(String email, int maxAttempts);
+}
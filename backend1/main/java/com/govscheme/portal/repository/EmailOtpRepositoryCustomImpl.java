@@ -0,0 +1,52 @@
+package com.govscheme.portal.repository;
+
+import com.govscheme.portal.model.EmailOtp;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+public class EmailOtpRepositoryCustomImpl implements EmailOtpRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void ensureIndexes() {
+        // Documents are removed once expiresAt has passed
+        mongoTemplate.indexOps(EmailOtp.class).ensureIndex(new Index()
+                .on("expiresAt", Sort.Direction.ASC)
+                .expire(Duration.ZERO)
+                .named("expires_at_ttl"));
+    }
+
+    // Deletes the code only if it is still the current, unexpired one: of two concurrent
+    // verifications (on any instance) exactly one succeeds
+    @Override
+    public boolean consume(String email, String otp) {
+        Query query = Query.query(Criteria.where("_id").is(email)
+                .and("otp").is(otp)
+                .and("expiresAt").gt(LocalDateTime.now()));
+        return mongoTemplate.remove(query, EmailOtp.class).getDeletedCount() == 1;
+    }
+
+    // Counts an attempt against the current unexpired code and returns it, or null if there is
+    // none or its attempts are used up. Check and increment are one findAndModify, so concurrent
+    // guesses (on any instance) can never get past the limit between them.
+    @Override
+    public EmailOtp reserveAttempt(String email, int maxAttempts) {
+        Query query = Query.query(Criteria.where("_id").is(email)
+                .and("expiresAt").gt(LocalDateTime.now())
+                .orOperator(Criteria.where("attempts").lt(maxAttempts), Criteria.where("attempts").is(null)));
+        return mongoTemplate.findAndModify(query, new Update().inc("attempts", 1),
+                FindAndModifyOptions.options().returnNew(true), EmailOtp.class);
+    }
+}
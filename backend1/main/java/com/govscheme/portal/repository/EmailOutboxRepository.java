@@ -0,0 +1,9 @@
+package com.govscheme.portal.repository;
+
+import com.govscheme.portal.model.EmailOutbox;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EmailOutboxRepository extends MongoRepository<EmailOutbox, String>, EmailOutboxRepositoryCustom {
+}
@@ -0,0 +1,27 @@
+package com.govscheme.portal.repository;
+
+import com.govscheme.portal.model.EmailOutbox;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface EmailOutboxRepositoryCustom {
+    int insertIgnoringDuplicates(List<EmailOutbox> messages);
+    
+    List<EmailOutbox> claimBatch(String owner, int size, Duration lease);
+    
+    void markSent(List<EmailOutbox> messages);
+    
+    void markFailed(EmailOutbox message, String error, int maxAttempts, Duration backoff);
+    
+    boolean renewLease(String owner, Duration lease);
+    
+    long reserveSendSlot(long intervalMicros);
+    
+    Map<EmailOutbox.Status, Long> countByStatus(String jobId);
+    
+    Optional<LocalDateTime> findLastSentAt(String jobId);
+}
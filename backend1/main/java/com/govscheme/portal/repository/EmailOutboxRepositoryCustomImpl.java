@@ -0,0 +1,213 @@
+package com.govscheme.portal.repository;
+
+import com.govscheme.portal.model.Counter;
+import com.govscheme.portal.model.EmailOutbox;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+public class EmailOutboxRepositoryCustomImpl implements EmailOutboxRepositoryCustom {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    // Counter holding the next free send slot, in epoch microseconds
+    private static final String SEND_SLOT_COUNTER = "outbox-send-slot";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(EmailOutbox.class);
+        // One message per recipient per job, so a resumed fan-out cannot enqueue anyone twice
+        indexOps.ensureIndex(new Index()
+                .on("jobId", Sort.Direction.ASC)
+                .on("toEmail", Sort.Direction.ASC)
+                .unique()
+                .named("job_recipient"));
+        indexOps.ensureIndex(new Index()
+                .on("status", Sort.Direction.ASC)
+                .on("nextAttemptAt", Sort.Direction.ASC)
+                .named("claimable"));
+        indexOps.ensureIndex(new Index()
+                .on("leaseOwner", Sort.Direction.ASC)
+                .named("lease_owner"));
+    }
+
+    @Override
+    public int insertIgnoringDuplicates(List<EmailOutbox> messages) {
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EmailOutbox.class);
+        bulk.insert(messages);
+        try {
+            return bulk.execute().getInsertedCount();
+        } catch (BulkOperationException e) {
+            boolean onlyDuplicates = e.getErrors().stream()
+                    .allMatch(error -> error.getCode() == DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+            return e.getResult().getInsertedCount();
+        }
+    }
+
+    @Override
+    public List<EmailOutbox> claimBatch(String owner, int size, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+
+        Query candidates = new Query(claimable(now)).limit(size);
+        candidates.fields().include("_id");
+        List<String> ids = mongoTemplate.find(candidates, EmailOutbox.class).stream()
+                .map(EmailOutbox::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Re-check the claim condition so messages taken by another worker in between are skipped
+        Query claim = new Query(new Criteria().andOperator(
+                Criteria.where("_id").in(ids),
+                claimable(now)
+        ));
+        Update update = new Update()
+                .set("status", EmailOutbox.Status.SENDING)
+                .set("leaseOwner", owner)
+                .set("leaseExpiresAt", now.plus(lease))
+                .inc("attempts", 1);
+        mongoTemplate.updateMulti(claim, update, EmailOutbox.class);
+
+        return mongoTemplate.find(Query.query(Criteria.where("leaseOwner").is(owner)), EmailOutbox.class);
+    }
+
+    @Override
+    public void markSent(List<EmailOutbox> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        List<String> ids = messages.stream().map(EmailOutbox::getId).toList();
+        Query query = Query.query(Criteria.where("_id").in(ids)
+                .and("leaseOwner").is(messages.get(0).getLeaseOwner()));
+        Update update = new Update()
+                .set("status", EmailOutbox.Status.SENT)
+                .set("sentAt", LocalDateTime.now())
+                .unset("leaseOwner")
+                .unset("leaseExpiresAt");
+        mongoTemplate.updateMulti(query, update, EmailOutbox.class);
+    }
+
+    @Override
+    public void markFailed(EmailOutbox message, String error, int maxAttempts, Duration backoff) {
+        Update update = new Update()
+                .set("lastError", error)
+                .unset("leaseOwner")
+                .unset("leaseExpiresAt");
+
+        int attempts = message.getAttempts();
+        if (attempts >= maxAttempts) {
+            update.set("status", EmailOutbox.Status.FAILED);
+        } else {
+            // Exponential backoff: backoff, 2x, 4x, ... capped at 1024x
+            Duration delay = backoff.multipliedBy(1L << Math.min(attempts - 1, 10));
+            update.set("status", EmailOutbox.Status.PENDING)
+                    .set("nextAttemptAt", LocalDateTime.now().plus(delay));
+        }
+
+        Query query = Query.query(Criteria.where("_id").is(message.getId())
+                .and("leaseOwner").is(message.getLeaseOwner()));
+        mongoTemplate.updateFirst(query, update, EmailOutbox.class);
+    }
+
+    // Extends the lease on whatever the owner still holds; false once it holds nothing, i.e. every
+    // message it claimed is settled or its lease lapsed and another worker took it over
+    @Override
+    public boolean renewLease(String owner, Duration lease) {
+        Query query = Query.query(Criteria.where("leaseOwner").is(owner).and("status").is(EmailOutbox.Status.SENDING));
+        Update update = new Update().set("leaseExpiresAt", LocalDateTime.now().plus(lease));
+        return mongoTemplate.updateMulti(query, update, EmailOutbox.class).getMatchedCount() > 0;
+    }
+
+    // One timeline of send slots, intervalMicros apart, shared by every worker on every instance:
+    // returns the time of the slot reserved (epoch microseconds), at the earliest now
+    @Override
+    public long reserveSendSlot(long intervalMicros) {
+        long now = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        // Timeline idle: this send goes now
+        Counter caughtUp = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(SEND_SLOT_COUNTER).and("seq").lte(now)),
+                new Update().set("seq", now + intervalMicros),
+                FindAndModifyOptions.options().returnNew(true),
+                Counter.class);
+        if (caughtUp != null) {
+            return now;
+        }
+        // Busy (or first use): take the slot after the last one reserved
+        Counter next = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(SEND_SLOT_COUNTER)),
+                new Update().inc("seq", intervalMicros),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                Counter.class);
+        return Math.max(now, next.getSeq() - intervalMicros);
+    }
+
+    @Override
+    public Map<EmailOutbox.Status, Long> countByStatus(String jobId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("jobId").is(jobId)),
+                Aggregation.group("status").count().as("count")
+        );
+
+        Map<EmailOutbox.Status, Long> counts = new EnumMap<>(EmailOutbox.Status.class);
+        for (EmailOutbox.Status status : EmailOutbox.Status.values()) {
+            counts.put(status, 0L);
+        }
+        for (Document result : mongoTemplate.aggregate(aggregation, EmailOutbox.class, Document.class)) {
+            EmailOutbox.Status status = EmailOutbox.Status.valueOf(result.getString("_id"));
+            counts.put(status, ((Number) result.get("count")).longValue());
+        }
+        return counts;
+    }
+
+    @Override
+    public Optional<LocalDateTime> findLastSentAt(String jobId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("jobId").is(jobId).and("status").is(EmailOutbox.Status.SENT.name())),
+                Aggregation.group().max("sentAt").as("lastSentAt")
+        );
+        Document result = mongoTemplate.aggregate(aggregation, EmailOutbox.class, Document.class)
+                .getUniqueMappedResult();
+        if (result == null || result.getDate("lastSentAt") == null) {
+            return Optional.empty();
+        }
+        return Optional.of(LocalDateTime.ofInstant(result.getDate("lastSentAt").toInstant(), ZoneId.systemDefault()));
+    }
+
+    // Pending messages that are due, or messages whose sending worker let its lease expire
+    private Criteria claimable(LocalDateTime now) {
+        return new Criteria().orOperator(
+                Criteria.where("status").is(EmailOutbox.Status.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(EmailOutbox.Status.SENDING).and("leaseExpiresAt").lt(now)
+        );
+    }
+}
@@ -0,0 +1,12 @@
+package com.govscheme.portal.repository;
+
+import com.govscheme.portal.model.NotificationJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NotificationJobRepository extends MongoRepository<NotificationJob, String> {
+    List<NotificationJob> findByStatus(NotificationJob.Status status);
+}
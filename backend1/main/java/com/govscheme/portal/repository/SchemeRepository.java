@@ -7,7 +7,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface SchemeRepository extends MongoRepository<Scheme, String> {
+public interface SchemeRepository extends MongoRepository<Scheme, String>, SchemeRepositoryCustom {
     List<Scheme> findByIsActiveTrue();
     
     List<Scheme> findByCategory(String category);
@@ -0,0 +1,26 @@
+package com.govscheme.portal.repository;
+
+import com.govscheme.portal.dto.SchemeBulkSaveResult;
+import com.govscheme.portal.dto.SchemePage;
+import com.govscheme.portal.model.Scheme;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface SchemeRepositoryCustom {
+    SchemePage findActiveSummaries(String category, String sort, String direction, String cursor, int size);
+    
+    long nextCatalogVersion();
+    
+    boolean publishCatalogVersion(long predecessor, long version);
+    
+    void forcePublishCatalogVersion(long version);
+    
+    long currentCatalogVersion();
+    
+    List<Scheme> findChangedBetween(long afterVersion, long upToVersion);
+    
+    Stream<Scheme> streamAll();
+    
+    SchemeBulkSaveResult bulkSave(List<Scheme> schemes);
+}
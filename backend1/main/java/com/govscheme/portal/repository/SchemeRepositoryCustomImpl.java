@@ -0,0 +1,341 @@
+package com.govscheme.portal.repository;
+
+import com.govscheme.portal.dto.SchemeBulkSaveResult;
+import com.govscheme.portal.dto.SchemePage;
+import com.govscheme.portal.dto.SchemeSummary;
+import com.govscheme.portal.model.Counter;
+import com.govscheme.portal.model.Scheme;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public class SchemeRepositoryCustomImpl implements SchemeRepositoryCustom {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final String CATALOG_COUNTER = "catalog";
+
+    // Highest version whose write, and every earlier one, has landed; what readers are given
+    private static final String PUBLISHED_COUNTER = "catalog-published";
+
+    // Sortable fields, with how to read the value back from a row and parse it from a cursor
+    private static final Map<String, SortField> SORT_FIELDS = Map.of(
+            "name", new SortField(Scheme::getName, value -> value),
+            "category", new SortField(Scheme::getCategory, value -> value),
+            "applicationDeadline", new SortField(Scheme::getApplicationDeadline, LocalDate::parse),
+            "createdAt", new SortField(Scheme::getCreatedAt, LocalDateTime::parse)
+    );
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.schemes.cursor-batch-size:500}")
+    private int cursorBatchSize;
+
+    @PostConstruct
+    public void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Scheme.class);
+        for (String field : SORT_FIELDS.keySet()) {
+            indexOps.ensureIndex(new Index()
+                    .on("isActive", Sort.Direction.ASC)
+                    .on(field, Sort.Direction.ASC)
+                    .on("_id", Sort.Direction.ASC)
+                    .named("active_" + field));
+        }
+        indexOps.ensureIndex(new Index()
+                .on("isActive", Sort.Direction.ASC)
+                .on("category", Sort.Direction.ASC)
+                .on("name", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC)
+                .named("active_category_name"));
+        indexOps.ensureIndex(new Index()
+                .on("catalogVersion", Sort.Direction.ASC)
+                .named("catalog_version"));
+
+        // Catalogs from before the published counter start from whatever was allocated
+        if (mongoTemplate.findById(PUBLISHED_COUNTER, Counter.class) == null) {
+            try {
+                mongoTemplate.insert(new Counter(PUBLISHED_COUNTER, readSeq(CATALOG_COUNTER)));
+            } catch (DuplicateKeyException e) {
+                // Another instance initialised it first
+            }
+        }
+    }
+
+    @Override
+    public long nextCatalogVersion() {
+        Counter counter = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(CATALOG_COUNTER)),
+                new Update().inc("seq", 1L),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                Counter.class);
+        return counter.getSeq();
+    }
+
+    // Versions are allocated before their write but only published after it, and strictly in
+    // order: version N is only published once N-1 is. Readers therefore never see a version whose
+    // schemes (or an earlier version's) are still missing, which would let an ETag or a delta
+    // cursor move past them. Publishing up to `version` at once is allowed when every version
+    // after `predecessor` has been written; false means the predecessor is not published yet.
+    @Override
+    public boolean publishCatalogVersion(long predecessor, long version) {
+        Query predecessorPublished = Query.query(Criteria.where("_id").is(PUBLISHED_COUNTER).and("seq").gte(predecessor));
+        return mongoTemplate.updateFirst(predecessorPublished, new Update().max("seq", version), Counter.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public void forcePublishCatalogVersion(long version) {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(PUBLISHED_COUNTER)),
+                new Update().max("seq", version), Counter.class);
+    }
+
+    @Override
+    public long currentCatalogVersion() {
+        return readSeq(PUBLISHED_COUNTER);
+    }
+
+    private long readSeq(String name) {
+        Counter counter = mongoTemplate.findById(name, Counter.class);
+        return counter != null && counter.getSeq() != null ? counter.getSeq() : 0L;
+    }
+
+    @Override
+    public List<Scheme> findChangedBetween(long afterVersion, long upToVersion) {
+        Query query = Query.query(Criteria.where("catalogVersion").gt(afterVersion).lte(upToVersion))
+                .with(Sort.by(Sort.Direction.ASC, "catalogVersion"));
+        return mongoTemplate.find(query, Scheme.class);
+    }
+
+    @Override
+    public Stream<Scheme> streamAll() {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(cursorBatchSize);
+        return mongoTemplate.stream(query, Scheme.class);
+    }
+
+    // One unordered bulk write: schemes with an id replace (or create) that document, the rest
+    // are inserted under a fresh id. A replaced document keeps its stored createdAt, which is
+    // also copied back onto the scheme. The bulk result's upserts tell which ids were new.
+    @Override
+    public SchemeBulkSaveResult bulkSave(List<Scheme> schemes) {
+        if (schemes.isEmpty()) {
+            return new SchemeBulkSaveResult(Map.of(), Set.of());
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Scheme.class);
+        Set<Integer> inserted = new HashSet<>();
+        for (int i = 0; i < schemes.size(); i++) {
+            Scheme scheme = schemes.get(i);
+            if (scheme.getId() == null) {
+                scheme.setId(new ObjectId().toHexString());
+                bulk.insert(scheme);
+                inserted.add(i);
+            } else {
+                bulk.upsert(Query.query(Criteria.where("_id").is(scheme.getId())), replacementKeepingCreatedAt(scheme));
+            }
+        }
+
+        Map<Integer, String> failures = new HashMap<>();
+        BulkWriteResult result;
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(error.getIndex(), error.getMessage());
+            }
+            result = e.getResult();
+        }
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            inserted.add(upsert.getIndex());
+        }
+        inserted.removeAll(failures.keySet());
+
+        Map<String, Scheme> updated = new HashMap<>();
+        for (int i = 0; i < schemes.size(); i++) {
+            if (!inserted.contains(i) && !failures.containsKey(i)) {
+                updated.put(schemes.get(i).getId(), schemes.get(i));
+            }
+        }
+        if (!updated.isEmpty()) {
+            Query stored = Query.query(Criteria.where("_id").in(updated.keySet()));
+            stored.fields().include("createdAt");
+            for (Scheme scheme : mongoTemplate.find(stored, Scheme.class)) {
+                updated.get(scheme.getId()).setCreatedAt(scheme.getCreatedAt());
+            }
+        }
+        return new SchemeBulkSaveResult(failures, inserted);
+    }
+
+    // A whole-document replace expressed as an update, so createdAt can be $setOnInsert: every
+    // other mapped field is set from the scheme, or unset when the scheme has no value for it
+    private Update replacementKeepingCreatedAt(Scheme scheme) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(scheme, document);
+        document.remove("_id");
+        Object createdAt = document.remove("createdAt");
+
+        Update update = new Update();
+        document.forEach(update::set);
+        mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(Scheme.class)
+                .doWithProperties((PropertyHandler<MongoPersistentProperty>) property -> {
+                    String field = property.getFieldName();
+                    if (!property.isIdProperty() && !field.equals("createdAt") && !document.containsKey(field)) {
+                        update.unset(field);
+                    }
+                });
+        update.setOnInsert("createdAt", createdAt);
+        return update;
+    }
+
+    // Keyset pagination: the cursor carries the sort value and id of the last row, so each page
+    // is an index range scan instead of a skip over everything before it.
+    @Override
+    public SchemePage findActiveSummaries(String category, String sort, String direction, String cursor, int size) {
+        SortField sortField = SORT_FIELDS.get(sort);
+        if (sortField == null) {
+            throw new RuntimeException("Unsupported sort field: " + sort);
+        }
+        Sort.Direction sortDirection = "desc".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        size = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        Criteria criteria = Criteria.where("isActive").is(true);
+        if (category != null && !category.isBlank()) {
+            criteria.and("category").is(category);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            criteria = new Criteria().andOperator(criteria, after(decodeCursor(cursor, sort, sortDirection), sort, sortDirection));
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by(sortDirection, sort, "_id"))
+                .limit(size + 1);
+        SchemeSummary.FIELDS.forEach(field -> query.fields().include(field));
+        query.fields().include(sort);
+
+        List<Scheme> rows = mongoTemplate.find(query, Scheme.class);
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+
+        List<SchemeSummary> summaries = new ArrayList<>(rows.size());
+        for (Scheme row : rows) {
+            summaries.add(SchemeSummary.of(row));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Scheme last = rows.get(rows.size() - 1);
+            nextCursor = encodeCursor(sort, sortDirection, sortField.reader.apply(last), last.getId());
+        }
+        return new SchemePage(summaries, sort, sortDirection.name().toLowerCase(), size, nextCursor);
+    }
+
+    // Rows strictly after (value, id) in the sort order. Mongo sorts missing values first
+    // ascending and last descending, and range operators never match them.
+    private Criteria after(Cursor position, String sort, Sort.Direction direction) {
+        if (direction == Sort.Direction.ASC) {
+            if (position.value == null) {
+                return new Criteria().orOperator(
+                        Criteria.where(sort).is(null).and("id").gt(position.id),
+                        Criteria.where(sort).ne(null));
+            }
+            return new Criteria().orOperator(
+                    Criteria.where(sort).gt(position.value),
+                    Criteria.where(sort).is(position.value).and("id").gt(position.id));
+        }
+
+        if (position.value == null) {
+            return Criteria.where(sort).is(null).and("id").lt(position.id);
+        }
+        return new Criteria().orOperator(
+                Criteria.where(sort).lt(position.value),
+                Criteria.where(sort).is(position.value).and("id").lt(position.id),
+                Criteria.where(sort).is(null));
+    }
+
+    private static String encodeCursor(String sort, Sort.Direction direction, Object value, String id) {
+        // The value goes last since it is free text; a leading '=' tells "" apart from null
+        String raw = sort + "\n" + direction.name() + "\n" + id + "\n" + (value != null ? "=" + value : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodeCursor(String cursor, String sort, Sort.Direction direction) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", 4);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        if (parts.length != 4) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        if (!parts[0].equals(sort) || !parts[1].equals(direction.name())) {
+            throw new RuntimeException("Cursor does not match the requested sort");
+        }
+
+        Object value = null;
+        if (parts[3].startsWith("=")) {
+            try {
+                value = SORT_FIELDS.get(sort).parser.apply(parts[3].substring(1));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
+        return new Cursor(value, parts[2]);
+    }
+
+    private static class SortField {
+
+        private final Function<Scheme, Object> reader;
+
+        private final Function<String, Object> parser;
+
+        SortField(Function<Scheme, Object> reader, Function<String, Object> parser) {
+            this.reader = reader;
+            this.parser = parser;
+        }
+    }
+
+    private static class Cursor {
+
+        private final Object value;
+
+        private final String id;
+
+        Cursor(Object value, String id) {
+            this.value = value;
+            this.id = id;
+        }
+    }
+}
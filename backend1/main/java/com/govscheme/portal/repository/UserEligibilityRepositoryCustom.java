@@ -0,0 +1,14 @@
+package com.govscheme.portal.repository;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+public interface UserEligibilityRepositoryCustom {
+    void addScheme(Collection<String> userIds, String schemeId);
+    
+    void removeScheme(Collection<String> userIds, String schemeId);
+    
+    void removeSchemeEverywhere(String schemeId);
+    
+    Stream<String> streamHolders(String schemeId);
+}
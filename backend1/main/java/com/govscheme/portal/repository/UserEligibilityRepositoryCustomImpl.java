@@ -0,0 +1,71 @@
+package com.govscheme.portal.repository;
+
+import com.govscheme.portal.model.UserEligibility;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+public class UserEligibilityRepositoryCustomImpl implements UserEligibilityRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.eligibility.cursor-batch-size:1000}")
+    private int cursorBatchSize;
+
+    @PostConstruct
+    public void ensureIndexes() {
+        // Multikey index so a scheme's holders can be found (and pulled) without a collection scan
+        mongoTemplate.indexOps(UserEligibility.class).ensureIndex(new Index()
+                .on("schemeIds", Sort.Direction.ASC)
+                .named("scheme_ids"));
+    }
+
+    // Only touches existing views; a user without one gets a full evaluation on first read
+    @Override
+    public void addScheme(Collection<String> userIds, String schemeId) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(userIds)),
+                new Update().addToSet("schemeIds", schemeId).set("updatedAt", LocalDateTime.now()),
+                UserEligibility.class);
+    }
+
+    @Override
+    public void removeScheme(Collection<String> userIds, String schemeId) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(userIds).and("schemeIds").is(schemeId)),
+                new Update().pull("schemeIds", schemeId).set("updatedAt", LocalDateTime.now()),
+                UserEligibility.class);
+    }
+
+    @Override
+    public void removeSchemeEverywhere(String schemeId) {
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("schemeIds").is(schemeId)),
+                new Update().pull("schemeIds", schemeId).set("updatedAt", LocalDateTime.now()),
+                UserEligibility.class);
+    }
+
+    @Override
+    public Stream<String> streamHolders(String schemeId) {
+        Query query = Query.query(Criteria.where("schemeIds").is(schemeId)).cursorBatchSize(cursorBatchSize);
+        query.fields().include("_id");
+        return mongoTemplate.stream(query, UserEligibility.class).map(UserEligibility::getUserId);
+    }
+}
@@ -0,0 +1,34 @@
+package com.govscheme.portal.repository;
+
+import com.govscheme.portal.model.Scheme;
+import com.govscheme.portal.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface UserRepositoryCustom {
+    Stream<User> streamNotificationRecipients(Scheme scheme);
+    
+    Stream<String> streamEligibleUserIds(Scheme scheme);
+    
+    List<String> findEligibleUserIds(Scheme scheme, Collection<String> userIds);
+    
+    Stream<User> streamEligibilityProfiles();
+    
+    Stream<User> streamNotificationCandidates();
+    
+    Set<String> findExistingEmails(Collection<String> emails);
+    
+    Map<Integer, String> bulkInsert(List<User> users);
+    
+    void markEmailVerified(String userId);
+    
+    User patchProfile(String userId, Map<String, Object> changes, Long expectedVersion);
+    
+    boolean replaceIfVersion(User user, long expectedVersion);
+    
+    User updateRoles(String userId, Set<String> roles);
+}
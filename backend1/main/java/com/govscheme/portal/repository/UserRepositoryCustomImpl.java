@@ -0,0 +1,286 @@
+package com.govscheme.portal.repository;
+
+import com.govscheme.portal.model.EligibilityRule;
+import com.govscheme.portal.model.EligibilityRuleGroup;
+import com.govscheme.portal.model.Scheme;
+import com.govscheme.portal.model.User;
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final String ALL = "All";
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.notifications.cursor-batch-size:500}")
+    private int cursorBatchSize;
+
+    @Override
+    public Stream<User> streamNotificationRecipients(Scheme scheme) {
+        Criteria criteria = eligibilityCriteria(scheme)
+                .and("isEmailVerified").is(true)
+                .and("isActive").is(true);
+
+        Query query = new Query(criteria).cursorBatchSize(cursorBatchSize);
+        query.fields().include("email").include("firstName");
+
+        return mongoTemplate.stream(query, User.class);
+    }
+
+    @Override
+    public Stream<String> streamEligibleUserIds(Scheme scheme) {
+        Query query = new Query(eligibilityCriteria(scheme)).cursorBatchSize(cursorBatchSize);
+        query.fields().include("_id");
+        return mongoTemplate.stream(query, User.class).map(User::getId);
+    }
+
+    @Override
+    public List<String> findEligibleUserIds(Scheme scheme, Collection<String> userIds) {
+        Query query = new Query(eligibilityCriteria(scheme).and("_id").in(userIds));
+        query.fields().include("_id");
+        return mongoTemplate.find(query, User.class).stream()
+                .map(User::getId)
+                .toList();
+    }
+
+    // Just the fields eligibility is decided on
+    @Override
+    public Stream<User> streamEligibilityProfiles() {
+        Query query = new Query().cursorBatchSize(cursorBatchSize);
+        query.fields()
+                .include("age")
+                .include("state")
+                .include("district")
+                .include("gender")
+                .include("category")
+                .include("occupation")
+                .include("annualIncome");
+        return mongoTemplate.stream(query, User.class);
+    }
+
+    // Every user who can receive notifications, with the fields needed to address them and to
+    // decide eligibility in memory (for fan-outs covering many schemes at once)
+    @Override
+    public Stream<User> streamNotificationCandidates() {
+        Query query = new Query(Criteria.where("isEmailVerified").is(true).and("isActive").is(true))
+                .cursorBatchSize(cursorBatchSize);
+        query.fields()
+                .include("email")
+                .include("firstName")
+                .include("age")
+                .include("state")
+                .include("district")
+                .include("gender")
+                .include("category")
+                .include("occupation")
+                .include("annualIncome");
+        return mongoTemplate.stream(query, User.class);
+    }
+
+    // One $in query for a whole chunk of candidate emails, served by the unique email index
+    @Override
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+        Query query = new Query(Criteria.where("email").in(emails));
+        query.fields().include("email");
+        Set<String> existing = new HashSet<>();
+        for (User user : mongoTemplate.find(query, User.class)) {
+            existing.add(user.getEmail());
+        }
+        return existing;
+    }
+
+    // Unordered: one failed document (e.g. an email registered in the meantime) does not stop
+    // the rest. Returns the error per failed position.
+    @Override
+    public Map<Integer, String> bulkInsert(List<User> users) {
+        if (users.isEmpty()) {
+            return Map.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        bulk.insert(users);
+        try {
+            bulk.execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            Map<Integer, String> failures = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(error.getIndex(), error.getCode() == DUPLICATE_KEY ? "Email already exists" : error.getMessage());
+            }
+            return failures;
+        }
+    }
+
+    // $set of the verification flags only; also drops the OTP fields older documents still carry
+    @Override
+    public void markEmailVerified(String userId) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(userId)),
+                new Update()
+                        .set("isEmailVerified", true)
+                        .set("isFirstLogin", false)
+                        .set("updatedAt", LocalDateTime.now())
+                        .unset("emailOtp")
+                        .unset("emailOtpExpiry"),
+                User.class);
+    }
+
+    // One findAndModify: $set of just the given fields plus a version bump, applied only if the
+    // stored version still equals expectedVersion (null skips the check). Documents written
+    // before versioning count as version 0. Returns the updated profile fields, or null when
+    // the user is missing or the version did not match.
+    @Override
+    public User patchProfile(String userId, Map<String, Object> changes, Long expectedVersion) {
+        Criteria criteria = Criteria.where("_id").is(userId);
+        if (expectedVersion != null) {
+            if (expectedVersion == 0) {
+                criteria.and("version").in(0L, null);
+            } else {
+                criteria.and("version").is(expectedVersion);
+            }
+        }
+
+        Update update = new Update()
+                .set("updatedAt", LocalDateTime.now())
+                .inc("version", 1L);
+        changes.forEach(update::set);
+
+        Query query = new Query(criteria);
+        query.fields()
+                .include("email")
+                .include("firstName")
+                .include("lastName")
+                .include("phoneNumber")
+                .include("age")
+                .include("state")
+                .include("district")
+                .include("occupation")
+                .include("annualIncome")
+                .include("category")
+                .include("gender")
+                .include("isEmailVerified")
+                .include("updatedAt")
+                .include("version");
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), User.class);
+    }
+
+    // Replaces the whole document, but only if the stored version still equals expectedVersion
+    // (version 0 also matches documents written before versioning); false when it did not
+    @Override
+    public boolean replaceIfVersion(User user, long expectedVersion) {
+        Criteria criteria = Criteria.where("_id").is(user.getId());
+        if (expectedVersion == 0) {
+            criteria.and("version").in(0L, null);
+        } else {
+            criteria.and("version").is(expectedVersion);
+        }
+        return mongoTemplate.findAndReplace(new Query(criteria), user) != null;
+    }
+
+    // Only the roles change, so no concurrent profile edit is overwritten; returns null if there is no such user
+    @Override
+    public User updateRoles(String userId, Set<String> roles) {
+        Query query = Query.query(Criteria.where("_id").is(userId));
+        query.fields().include("email").include("roles");
+        return mongoTemplate.findAndModify(query,
+                new Update().set("roles", roles).set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true), User.class);
+    }
+
+    // Mongo equivalent of the scheme's eligibility rules, evaluated against the users collection
+    private Criteria eligibilityCriteria(Scheme scheme) {
+        Criteria criteria = new Criteria();
+
+        if (scheme.getMinAge() != null || scheme.getMaxAge() != null) {
+            Criteria age = criteria.and("age");
+            if (scheme.getMinAge() != null) {
+                age.gte(scheme.getMinAge());
+            }
+            if (scheme.getMaxAge() != null) {
+                age.lte(scheme.getMaxAge());
+            }
+        }
+
+        restrictTo(criteria, "state", scheme.getEligibleStates());
+        restrictTo(criteria, "district", scheme.getEligibleDistricts());
+        restrictTo(criteria, "gender", scheme.getEligibleGenders());
+        restrictTo(criteria, "category", scheme.getEligibleCategories());
+        restrictTo(criteria, "occupation", scheme.getEligibleOccupations());
+
+        // Each $or needs its own clause, so the income check and rule groups are ANDed together
+        List<Criteria> clauses = new ArrayList<>();
+
+        // Users who have not declared an income are not filtered on income
+        if (scheme.getMaxIncome() != null) {
+            clauses.add(new Criteria().orOperator(
+                    Criteria.where("annualIncome").is(null),
+                    Criteria.where("annualIncome").lte(scheme.getMaxIncome())
+            ));
+        }
+
+        if (scheme.getRuleGroups() != null) {
+            for (EligibilityRuleGroup group : scheme.getRuleGroups()) {
+                List<Criteria> rules = group.getAnyOf().stream()
+                        .map(this::ruleCriteria)
+                        .toList();
+                clauses.add(rules.size() == 1 ? rules.get(0) : new Criteria().orOperator(rules));
+            }
+        }
+
+        if (!clauses.isEmpty()) {
+            criteria.andOperator(clauses);
+        }
+
+        return criteria;
+    }
+
+    // Same semantics as EligibilityProgram: a missing field fails in/gte/lte and passes notIn
+    private Criteria ruleCriteria(EligibilityRule rule) {
+        Criteria field = Criteria.where(rule.getField());
+        switch (rule.getOperator()) {
+            case "in" -> field.in(withoutNulls(rule.getValues()));
+            case "notIn" -> field.nin(withoutNulls(rule.getValues()));
+            case "gte" -> field.gte(rule.getValue());
+            case "lte" -> field.lte(rule.getValue());
+            default -> throw new RuntimeException("Unsupported rule operator: " + rule.getOperator());
+        }
+        return field;
+    }
+
+    private void restrictTo(Criteria criteria, String field, List<String> values) {
+        if (values == null || values.isEmpty() || values.contains(ALL)) {
+            return;
+        }
+        criteria.and(field).in(withoutNulls(values));
+    }
+
+    private static List<String> withoutNulls(List<String> values) {
+        List<String> accepted = new ArrayList<>(values);
+        accepted.removeIf(value -> value == null);
+        return accepted;
+    }
+}
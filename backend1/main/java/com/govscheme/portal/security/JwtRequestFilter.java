@@ -1,9 +1,12 @@
 package com.govscheme.portal.security;
 
 import com.govscheme.portal.service.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -24,34 +27,54 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+    
+    // Trust the signed role claim instead of loading the user; a deactivated account then
+    // stays usable until its token expires
+    @Value("${jwt.stateless:false}")
+    private boolean stateless;
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
         
         final String authorizationHeader = request.getHeader("Authorization");
         
-        String username = null;
-        String jwt = null;
+        Claims claims = null;
         
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
+                // Signature and expiry are checked here, once per request
+                claims = jwtUtil.verifyToken(authorizationHeader.substring(7));
             } catch (Exception e) {
                 logger.error("JWT Token extraction failed", e);
             }
         }
         
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (claims != null && claims.getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String username = claims.getSubject();
+            UserDetails userDetails = loadUserDetails(username, claims);
             
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (username.equals(userDetails.getUsername())) {
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                request.setAttribute(JwtUtil.CLAIMS_ATTRIBUTE, claims);
             }
         }
         chain.doFilter(request, response);
     }
+    
+    private UserDetails loadUserDetails(String username, Claims claims) {
+        if (stateless) {
+            return User.withUsername(username)
+                    .password("")
+                    .authorities("ROLE_" + claims.get("role", String.class))
+                    .build();
+        }
+        return userDetailsCache.get(username, userDetailsService::loadUserByUsername);
+    }
 }
@@ -1,32 +1,97 @@
 package com.govscheme.portal.security;
 
+import com.govscheme.portal.dto.CacheStats;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
     
+    // Request attribute under which JwtRequestFilter leaves the verified claims for controllers
+    public static final String CLAIMS_ATTRIBUTE = "jwtClaims";
+    
+    // The userId claim of the request's verified token; null for anonymous requests
+    public static String userId(HttpServletRequest request) {
+        return request.getAttribute(CLAIMS_ATTRIBUTE) instanceof Claims claims ? claims.get("userId", String.class) : null;
+    }
+    
+    // Whether the request may read or change the given user's data: its own, or any as ADMIN
+    public static boolean isSelfOrAdmin(HttpServletRequest request, String userId) {
+        return request.isUserInRole("ADMIN") || (userId != null && userId.equals(userId(request)));
+    }
+    
     @Value("${jwt.secret}")
     private String secret;
     
     @Value("${jwt.expiration}")
     private Long expiration;
     
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private int verifiedCacheMaxSize;
+    
+    // Derived once; both are immutable and safe to share across request threads
+    private SecretKey signingKey;
+    
+    private JwtParser parser;
+    
+    // Verified claims keyed by SHA-256 of the token, each kept no longer than the token's expiry
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    
+    private final AtomicLong cacheHits = new AtomicLong();
+    
+    private final AtomicLong cacheMisses = new AtomicLong();
+    
+    private final AtomicLong cacheEvictions = new AtomicLong();
+    
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+    
+    // Verifies signature and expiry once and returns the claims; throws JwtException if invalid
+    public Claims verifyToken(String token) {
+        long now = System.currentTimeMillis();
+        String key = hash(token);
+        
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            cacheHits.incrementAndGet();
+            return cached.claims;
+        }
+        
+        cacheMisses.incrementAndGet();
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            if (verifiedTokens.size() >= verifiedCacheMaxSize) {
+                evict(now);
+            }
+            verifiedTokens.put(key, new VerifiedToken(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
     }
     
     public String extractUsername(String token) {
@@ -38,22 +103,10 @@ public class JwtUtil {
     }
     
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = verifyToken(token);
         return claimsResolver.apply(claims);
     }
     
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-    
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-    
     public String generateToken(UserDetails userDetails, String userId, String role) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
@@ -67,17 +120,53 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        // verifyToken already rejects expired tokens
+        return verifyToken(token).getSubject().equals(userDetails.getUsername());
     }
     
     public String extractRole(String token) {
-        Claims claims = extractAllClaims(token);
-        return (String) claims.get("role");
+        return (String) verifyToken(token).get("role");
+    }
+    
+    public CacheStats getVerifiedTokenCacheStats() {
+        return CacheStats.of("verifiedTokens", verifiedTokens.size(), verifiedCacheMaxSize,
+                cacheHits.get(), cacheMisses.get(), cacheEvictions.get());
+    }
+    
+    private void evict(long now) {
+        verifiedTokens.values().removeIf(entry -> entry.expiresAt <= now);
+        int excess = verifiedTokens.size() - verifiedCacheMaxSize + Math.max(1, verifiedCacheMaxSize / 10);
+        Iterator<String> keys = verifiedTokens.keySet().iterator();
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            cacheEvictions.incrementAndGet();
+        }
+    }
+    
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static class VerifiedToken {
+        
+        private final Claims claims;
+        
+        private final long expiresAt;
+        
+        VerifiedToken(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
     }
 }
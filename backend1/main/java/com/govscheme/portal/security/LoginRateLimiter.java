@@ -0,0 +1,145 @@
+package com.govscheme.portal.security;
+
+import com.govscheme.portal.service.AdmissionRejectedException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Token buckets per email and per client IP for the credential endpoints, checked before any
+// BCrypt work is queued. Each bucket is a single AtomicLong holding the time its next request
+// is due (GCRA), updated with compare-and-set, so checks never take a lock and keys only
+// contend with themselves. Buckets that have fully refilled are indistinguishable from absent
+// ones, so a background sweep drops them; the request path only evicts a bounded number when
+// the maps are past their bound between sweeps.
+//
+// The IP is the servlet request's remote address. Behind a reverse proxy that is the proxy's,
+// so ForwardedHeadersConfig resolves it from X-Forwarded-For, trusting only configured proxies.
+@Component
+public class LoginRateLimiter {
+
+    // Entries a request may scan when the maps are over their bound, so no call is O(map size)
+    private static final int MAX_INLINE_EVICTIONS = 64;
+
+    @Value("${app.auth.rate.email.per-minute:10}")
+    private int emailPerMinute;
+
+    @Value("${app.auth.rate.email.burst:5}")
+    private int emailBurst;
+
+    @Value("${app.auth.rate.ip.per-minute:60}")
+    private int ipPerMinute;
+
+    @Value("${app.auth.rate.ip.burst:20}")
+    private int ipBurst;
+
+    @Value("${app.auth.rate.max-tracked:100000}")
+    private int maxTracked;
+
+    @Value("${app.auth.rate.sweep-seconds:30}")
+    private long sweepSeconds;
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "login-rate-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, AtomicLong> emails = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> ips = new ConcurrentHashMap<>();
+
+    private final LongAdder limitedByEmail = new LongAdder();
+
+    private final LongAdder limitedByIp = new LongAdder();
+
+    // Either argument may be null to skip that bucket
+    public void acquire(String email, String clientIp) {
+        if (clientIp != null) {
+            take(ips, clientIp, ipPerMinute, ipBurst, limitedByIp);
+        }
+        if (email != null) {
+            take(emails, email.strip().toLowerCase(Locale.ROOT), emailPerMinute, emailBurst, limitedByEmail);
+        }
+    }
+
+    public long getLimitedByEmail() {
+        return limitedByEmail.sum();
+    }
+
+    public long getLimitedByIp() {
+        return limitedByIp.sum();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    public int getTrackedEmails() {
+        return emails.size();
+    }
+
+    public int getTrackedIps() {
+        return ips.size();
+    }
+
+    // A request is admitted while the bucket's due time, after adding one interval, stays
+    // within burst intervals of now
+    private void take(Map<String, AtomicLong> buckets, String key, int perMinute, int burst, LongAdder limited) {
+        long now = System.nanoTime();
+        long interval = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+        long limit = interval * Math.max(1, burst);
+
+        if (buckets.size() >= maxTracked) {
+            evictRefilled(buckets, now, MAX_INLINE_EVICTIONS);
+        }
+        AtomicLong due = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = due.get();
+            long next = Math.max(current - now, 0) + now + interval;
+            long excess = next - now - limit;
+            if (excess > 0) {
+                limited.increment();
+                throw new AdmissionRejectedException(AdmissionRejectedException.Reason.RATE_LIMITED,
+                        Math.max(1, TimeUnit.NANOSECONDS.toSeconds(excess) + 1),
+                        "Too many attempts. Please wait before trying again.");
+            }
+            if (due.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        evictRefilled(ips, now, Integer.MAX_VALUE);
+        evictRefilled(emails, now, Integer.MAX_VALUE);
+    }
+
+    // Looks at no more than maxScanned entries; a bucket is refilled once its due time has passed
+    private static void evictRefilled(Map<String, AtomicLong> buckets, long now, int maxScanned) {
+        Iterator<AtomicLong> iterator = buckets.values().iterator();
+        for (int scanned = 0; scanned < maxScanned && iterator.hasNext(); scanned++) {
+            if (iterator.next().get() - now <= 0) {
+                iterator.remove();
+            }
+        }
+    }
+}
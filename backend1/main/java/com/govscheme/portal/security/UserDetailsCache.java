@@ -0,0 +1,88 @@
+package com.govscheme.portal.security;
+
+import com.govscheme.portal.dto.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Bounded, TTL-based cache of UserDetails by email so authenticated requests do not each
+// cost a users.findByEmail round trip. Entries are dropped explicitly when the user changes.
+@Component
+public class UserDetailsCache {
+
+    @Value("${app.security.user-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${app.security.user-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(username);
+        if (entry != null && entry.expiresAt - now > 0) {
+            hits.incrementAndGet();
+            return entry.details;
+        }
+
+        misses.incrementAndGet();
+        UserDetails details = loader.apply(username);
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        entries.put(username, new Entry(details, now + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        return details;
+    }
+
+    public void invalidate(String username) {
+        if (username != null) {
+            entries.remove(username);
+        }
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public CacheStats getStats() {
+        return CacheStats.of("userDetails", entries.size(), maxSize, hits.get(), misses.get(), evictions.get());
+    }
+
+    // Drop expired entries first; if the cache is still full, drop an arbitrary tenth of it
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt - now <= 0);
+        int excess = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static class Entry {
+
+        private final UserDetails details;
+
+        private final long expiresAt;
+
+        Entry(UserDetails details, long expiresAt) {
+            this.details = details;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
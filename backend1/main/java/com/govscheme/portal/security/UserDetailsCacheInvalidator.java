@@ -0,0 +1,20 @@
+package com.govscheme.portal.security;
+
+import com.govscheme.portal.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+// Any save of a user (profile update, deactivation, role change) drops its cached UserDetails
+@Component
+public class UserDetailsCacheInvalidator extends AbstractMongoEventListener<User> {
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        userDetailsCache.invalidate(event.getSource().getEmail());
+    }
+}
@@ -0,0 +1,28 @@
+package com.govscheme.portal.service;
+
+// A request turned away before doing the expensive part: the caller should retry later
+public class AdmissionRejectedException extends RuntimeException {
+
+    public enum Reason {
+        OVERLOADED,
+        RATE_LIMITED
+    }
+
+    private final Reason reason;
+
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(Reason reason, long retryAfterSeconds, String message) {
+        super(message);
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
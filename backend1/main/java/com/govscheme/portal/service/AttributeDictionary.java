@@ -0,0 +1,110 @@
+package com.govscheme.portal.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Dense int codes for the low-cardinality eligibility attributes (state, district, gender,
+// category, occupation). Codes are assigned from scheme data only, so the dictionaries stay as
+// small as the catalog's vocabulary; user values are looked up and never add codes. Loaded
+// documents share the dictionary's String instances instead of holding their own copies.
+// Values dropped from the catalog keep their codes until the eligibility index rebuilds and
+// compact() starts every field afresh; whatever encoded against the old codes keeps them.
+@Component
+public class AttributeDictionary {
+
+    public static final int UNKNOWN = -1;
+
+    public static final String STATE = "state";
+
+    public static final String DISTRICT = "district";
+
+    public static final String GENDER = "gender";
+
+    public static final String CATEGORY = "category";
+
+    public static final String OCCUPATION = "occupation";
+
+    private volatile Map<String, Codes> fields = emptyFields();
+
+    // Null for fields that are not dictionary-encoded
+    public Codes of(String field) {
+        return fields.get(field);
+    }
+
+    // Replaces every field with an empty dictionary and returns them, for a caller about to
+    // re-encode the whole catalog (EligibilityIndex.rebuild)
+    public Map<String, Codes> compact() {
+        Map<String, Codes> fresh = emptyFields();
+        fields = fresh;
+        return fresh;
+    }
+
+    private static Map<String, Codes> emptyFields() {
+        return Map.of(
+                STATE, new Codes(),
+                DISTRICT, new Codes(),
+                GENDER, new Codes(),
+                CATEGORY, new Codes(),
+                OCCUPATION, new Codes()
+        );
+    }
+
+    public static final class Codes {
+
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+
+        private volatile String[] values = new String[0];
+
+        private Codes() {
+        }
+
+        // Assigns a code on first sight; for scheme values
+        public int encode(String value) {
+            if (value == null) {
+                return UNKNOWN;
+            }
+            Integer code = codes.get(value);
+            return code != null ? code : assign(value);
+        }
+
+        // UNKNOWN for values no scheme has mentioned; for user values
+        public int code(String value) {
+            if (value == null) {
+                return UNKNOWN;
+            }
+            Integer code = codes.get(value);
+            return code != null ? code : UNKNOWN;
+        }
+
+        public String decode(int code) {
+            return values[code];
+        }
+
+        // The shared instance for a known value, or the value itself
+        public String intern(String value) {
+            int code = code(value);
+            return code != UNKNOWN ? values[code] : value;
+        }
+
+        public int size() {
+            return values.length;
+        }
+
+        private synchronized int assign(String value) {
+            Integer existing = codes.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            int code = values.length;
+            String[] grown = Arrays.copyOf(values, code + 1);
+            grown[code] = value;
+            // Publish the value before the code, so decode never sees a code it cannot resolve
+            values = grown;
+            codes.put(value, code);
+            return code;
+        }
+    }
+}
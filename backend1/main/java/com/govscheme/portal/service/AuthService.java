@@ -6,14 +6,12 @@ import com.govscheme.portal.dto.RegisterRequest;
 import com.govscheme.portal.model.User;
 import com.govscheme.portal.repository.UserRepository;
 import com.govscheme.portal.security.JwtUtil;
+import com.govscheme.portal.security.LoginRateLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.HashSet;
-import java.util.Random;
 import java.util.Set;
 
 @Service
@@ -22,9 +20,6 @@ public class AuthService {
     @Autowired
     private UserRepository userRepository;
     
-    @Autowired
-    private PasswordEncoder passwordEncoder;
-    
     @Autowired
     private JwtUtil jwtUtil;
     
@@ -34,14 +29,24 @@ public class AuthService {
     @Autowired
     private EmailService emailService;
     
-    public AuthResponse register(RegisterRequest request) {
+    @Autowired
+    private OtpStore otpStore;
+    
+    @Autowired
+    private PasswordHasher passwordHasher;
+    
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+    
+    public AuthResponse register(RegisterRequest request, String clientIp) {
+        loginRateLimiter.acquire(null, clientIp);
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new RuntimeException("Email already exists");
         }
         
         User user = new User();
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHasher.encode(request.getPassword()));
         user.setFirstName(request.getFirstName());
         user.setLastName(request.getLastName());
         user.setPhoneNumber(request.getPhoneNumber());
@@ -75,13 +80,16 @@ public class AuthService {
         );
     }
     
-    public AuthResponse login(AuthRequest request) {
+    public AuthResponse login(AuthRequest request, String clientIp) {
+        // Turn floods away before they cost a lookup or a hash
+        loginRateLimiter.acquire(request.getEmail(), clientIp);
+        
         // Find user
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("Invalid email or password"));
         
         // Check password manually
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHasher.matches(request.getPassword(), user.getPassword())) {
             throw new RuntimeException("Invalid email or password");
         }
         
@@ -92,15 +100,12 @@ public class AuthService {
         
         // If first login or not verified, send OTP
         if (user.getIsFirstLogin() || !user.getIsEmailVerified()) {
-            String otp = generateOTP();
-            user.setEmailOtp(otp);
-            user.setEmailOtpExpiry(LocalDateTime.now().plusMinutes(10));
-            userRepository.save(user);
+            String otp = otpStore.issue(user.getEmail());
             
             try {
                 emailService.sendOtpEmail(user.getEmail(), otp, user.getFirstName());
             } catch (Exception e) {
-                // Log error but continue - OTP is saved in DB
+                // Log error but continue - OTP is saved in the OTP store
                 System.err.println("Failed to send OTP email: " + e.getMessage());
             }
             
@@ -131,23 +136,17 @@ public class AuthService {
         );
     }
     
-    public AuthResponse verifyOtp(String email, String otp) {
+    public AuthResponse verifyOtp(String email, String otp, String clientIp) {
+        loginRateLimiter.acquire(email, clientIp);
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        if (user.getEmailOtp() == null || !user.getEmailOtp().equals(otp)) {
-            throw new RuntimeException("Invalid OTP");
-        }
-        
-        if (user.getEmailOtpExpiry().isBefore(LocalDateTime.now())) {
-            throw new RuntimeException("OTP has expired");
-        }
+        otpStore.verify(email, otp);
         
+        // Flip just the two flags instead of rewriting the whole user
+        userRepository.markEmailVerified(user.getId());
         user.setIsEmailVerified(true);
         user.setIsFirstLogin(false);
-        user.setEmailOtp(null);
-        user.setEmailOtpExpiry(null);
-        userRepository.save(user);
         
         // Send welcome email (non-blocking)
         try {
@@ -172,7 +171,8 @@ public class AuthService {
         );
     }
     
-    public void resendOtp(String email) {
+    public void resendOtp(String email, String clientIp) {
+        loginRateLimiter.acquire(email, clientIp);
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
@@ -180,17 +180,8 @@ public class AuthService {
             throw new RuntimeException("Email already verified");
         }
         
-        String otp = generateOTP();
-        user.setEmailOtp(otp);
-        user.setEmailOtpExpiry(LocalDateTime.now().plusMinutes(10));
-        userRepository.save(user);
+        String otp = otpStore.issue(user.getEmail());
         
         emailService.sendOtpEmail(user.getEmail(), otp, user.getFirstName());
     }
-    
-    private String generateOTP() {
-        Random random = new Random();
-        int otp = 100000 + random.nextInt(900000);
-        return String.valueOf(otp);
-    }
 }
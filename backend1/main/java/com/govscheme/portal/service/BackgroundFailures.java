@@ -0,0 +1,47 @@
+package com.govscheme.portal.service;
+
+import com.govscheme.portal.dto.BackgroundTaskStats;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Failures of work that runs off the request path (event listeners, rebuild and worker
+// threads), counted per task so they show in the admin metrics and not only in the log
+@Component
+public class BackgroundFailures {
+
+    private final Map<String, Task> tasks = new ConcurrentSkipListMap<>();
+
+    public void record(String task, Exception e) {
+        tasks.computeIfAbsent(task, name -> new Task()).record(e);
+    }
+
+    public List<BackgroundTaskStats> getStats() {
+        List<BackgroundTaskStats> stats = new ArrayList<>();
+        for (Map.Entry<String, Task> entry : tasks.entrySet()) {
+            Task task = entry.getValue();
+            stats.add(new BackgroundTaskStats(entry.getKey(), task.failures.get(), task.lastFailureAt, task.lastError));
+        }
+        return stats;
+    }
+
+    private static class Task {
+
+        private final AtomicLong failures = new AtomicLong();
+
+        private volatile LocalDateTime lastFailureAt;
+
+        private volatile String lastError;
+
+        void record(Exception e) {
+            failures.incrementAndGet();
+            lastFailureAt = LocalDateTime.now();
+            lastError = e.toString();
+        }
+    }
+}
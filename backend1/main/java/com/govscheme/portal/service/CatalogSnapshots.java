@@ -0,0 +1,199 @@
+package com.govscheme.portal.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.govscheme.portal.event.SchemeChangedEvent;
+import com.govscheme.portal.model.Scheme;
+import com.govscheme.portal.repository.SchemeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// The public catalog responses serialized once per catalog version, as raw JSON and gzip.
+// Anonymous listing requests are served by copying these buffers instead of running Jackson
+// (and the gzip filter) over the same schemes on every hit. Snapshots are regenerated on a
+// background thread; until the new one is ready, callers fall back to live serialization.
+@Component
+public class CatalogSnapshots {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshots.class);
+
+    @Autowired
+    private SchemeRepository schemeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BackgroundFailures backgroundFailures;
+
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshots");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+    private volatile Snapshot snapshot;
+
+    // Null until a snapshot at least as new as this catalog version exists
+    public Payload activeSchemes(long catalogVersion) {
+        Snapshot current = current(catalogVersion);
+        return current != null ? current.active : null;
+    }
+
+    public Payload category(String category, long catalogVersion) {
+        Snapshot current = current(catalogVersion);
+        if (current == null) {
+            return null;
+        }
+        return current.byCategory.getOrDefault(category, current.empty);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduleRebuild();
+    }
+
+    @EventListener
+    public void onSchemeChanged(SchemeChangedEvent event) {
+        scheduleRebuild();
+    }
+
+    @PreDestroy
+    public void stop() {
+        builder.shutdownNow();
+    }
+
+    private Snapshot current(long catalogVersion) {
+        Snapshot current = snapshot;
+        // Callers pass a version cached for up to its TTL while rebuilds read it fresh, so a newer
+        // snapshot is served rather than rebuilt again; only an older one is replaced
+        if (current == null || current.version < catalogVersion) {
+            // Also covers changes made through another instance, which publish no local event
+            scheduleRebuild();
+            return null;
+        }
+        return current;
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            builder.execute(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        rebuildPending.set(false);
+        try {
+            // Version first: the schemes read afterwards are at least as new as the version claims
+            long version = schemeRepository.currentCatalogVersion();
+            List<Scheme> active = new ArrayList<>();
+            Map<String, List<Scheme>> categories = new HashMap<>();
+            // The category listing has always included inactive schemes (findByCategory), so keep that
+            for (Scheme scheme : schemeRepository.findAll()) {
+                if (Boolean.TRUE.equals(scheme.getIsActive())) {
+                    active.add(scheme);
+                }
+                if (scheme.getCategory() != null) {
+                    categories.computeIfAbsent(scheme.getCategory(), c -> new ArrayList<>()).add(scheme);
+                }
+            }
+
+            Map<String, Payload> byCategory = new HashMap<>();
+            for (Map.Entry<String, List<Scheme>> entry : categories.entrySet()) {
+                byCategory.put(entry.getKey(), serialize(entry.getValue(), version));
+            }
+            snapshot = new Snapshot(version, serialize(active, version), serialize(List.of(), version), byCategory);
+        } catch (Exception e) {
+            // Requests keep serializing live until the next attempt succeeds
+            log.error("Failed to build catalog snapshot", e);
+            backgroundFailures.record("catalog-snapshots", e);
+        }
+    }
+
+    private Payload serialize(List<Scheme> schemes, long version) throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(schemes);
+        return new Payload(version, json, gzip(json));
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        // Compressed once per catalog change, so spend the CPU on the best ratio
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static class Snapshot {
+
+        private final long version;
+
+        private final Payload active;
+
+        private final Payload empty;
+
+        private final Map<String, Payload> byCategory;
+
+        Snapshot(long version, Payload active, Payload empty, Map<String, Payload> byCategory) {
+            this.version = version;
+            this.active = active;
+            this.empty = empty;
+            this.byCategory = byCategory;
+        }
+    }
+
+    public static class Payload {
+
+        private final long version;
+
+        private final byte[] identity;
+
+        private final byte[] gzip;
+
+        Payload(long version, byte[] identity, byte[] gzip) {
+            this.version = version;
+            this.identity = identity;
+            this.gzip = gzip;
+        }
+
+        // Catalog version the payload was built at
+        public long getVersion() {
+            return version;
+        }
+
+        // Shared buffers: write them out, never modify them
+        public byte[] getIdentity() {
+            return identity;
+        }
+
+        public byte[] getGzip() {
+            return gzip;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.govscheme.portal.service;
+
+import com.govscheme.portal.repository.SchemeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Publishes catalog versions once their writes have landed, strictly in order (see
+// SchemeRepositoryCustomImpl.publishCatalogVersion), on one background thread per instance.
+// Writers hand their version over and return; only this thread waits for an earlier version,
+// whichever instance is writing it, and a run of consecutive versions is published in one update.
+// Readers get the published version from published(), which also sees other instances' writes.
+@Component
+public class CatalogVersionPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogVersionPublisher.class);
+
+    private static final long RECHECK_MS = 10;
+
+    private static final long FAILURE_BACKOFF_MS = 1000;
+
+    @Autowired
+    private SchemeRepository schemeRepository;
+
+    // How long a written version waits for an earlier one before it is published regardless
+    @Value("${app.catalog.publish-timeout-ms:5000}")
+    private long publishTimeoutMs;
+
+    // How long a read of the published counter is trusted before asking Mongo again, so writes
+    // made through other instances show up within this window
+    @Value("${app.catalog.version-ttl-ms:1000}")
+    private long versionTtlMs;
+
+    private volatile long published = -1;
+
+    private volatile long publishedReadAt = 0;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition written = lock.newCondition();
+
+    // Written here but not yet published, with the nanoTime each was written at
+    private final TreeMap<Long, Long> pending = new TreeMap<>();
+
+    private final Thread publisher = new Thread(this::run, "catalog-version-publisher");
+
+    private final LongAdder forced = new LongAdder();
+
+    private volatile boolean running = true;
+
+    @PostConstruct
+    public void start() {
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        publisher.interrupt();
+        publisher.join(TimeUnit.SECONDS.toMillis(5));
+        // These writes have landed; leaving them unpublished would stall every later version
+        Long last = lastPending();
+        if (last != null) {
+            schemeRepository.forcePublishCatalogVersion(last);
+        }
+    }
+
+    // Called once the write holding the version has finished, whether or not it succeeded
+    public void written(long version) {
+        lock.lock();
+        try {
+            pending.put(version, System.nanoTime());
+            written.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Bumped on every create, update and soft delete once the write has landed
+    public long published() {
+        long now = System.currentTimeMillis();
+        if (published < 0 || now - publishedReadAt > versionTtlMs) {
+            published = schemeRepository.currentCatalogVersion();
+            publishedReadAt = now;
+        }
+        return published;
+    }
+
+    // Versions published without waiting for their predecessor
+    public long getForced() {
+        return forced.sum();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                publishPending();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to publish catalog versions; retrying", e);
+                try {
+                    Thread.sleep(FAILURE_BACKOFF_MS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void publishPending() throws InterruptedException {
+        long first;
+        long last;
+        long writtenAt;
+        lock.lock();
+        try {
+            while (pending.isEmpty()) {
+                written.await();
+            }
+            first = pending.firstKey();
+            writtenAt = pending.get(first);
+            last = first;
+            while (pending.containsKey(last + 1)) {
+                last++;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (!schemeRepository.publishCatalogVersion(first - 1, last)) {
+            if (System.nanoTime() - writtenAt < TimeUnit.MILLISECONDS.toNanos(publishTimeoutMs)) {
+                lock.lock();
+                try {
+                    written.await(RECHECK_MS, TimeUnit.MILLISECONDS);
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+            // The writer holding an earlier version died or hung; do not stall the catalog on it
+            forced.increment();
+            log.warn("Publishing catalog version {} without waiting for version {}", last, first - 1);
+            schemeRepository.forcePublishCatalogVersion(last);
+        }
+        // This instance's own writes are visible to its readers without waiting out the TTL
+        published = Math.max(published, last);
+
+        lock.lock();
+        try {
+            pending.headMap(last, true).clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Long lastPending() {
+        lock.lock();
+        try {
+            return pending.isEmpty() ? null : pending.lastKey();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.govscheme.portal.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.govscheme.portal.dto.EligibilityBatchResult;
+import com.govscheme.portal.dto.EligibilityProfile;
+import com.govscheme.portal.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Eligibility for a stream of unregistered profiles (NDJSON in, NDJSON out, in input order).
+// Lines are cut into chunks that are parsed and evaluated on a shared worker pool, all against
+// one snapshot of the eligibility index taken before the first line. Only a small window of chunks is in flight per
+// request: once it is full, reading waits for the oldest chunk to be written, so a slow client
+// slows the reader instead of growing the heap. Bad lines, and lines longer than the cap, get an
+// error result of their own; if a chunk cannot be written at all, a final record without a line
+// number says the batch stopped there, since the 200 has long been sent.
+@Component
+public class EligibilityBatchEvaluator {
+
+    private static final Logger log = LoggerFactory.getLogger(EligibilityBatchEvaluator.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.eligibility.batch.chunk-size:500}")
+    private int chunkSize;
+
+    // In characters; a profile is a few hundred
+    @Value("${app.eligibility.batch.max-line-length:65536}")
+    private int maxLineLength;
+
+    // 0 means one worker per core
+    @Value("${app.eligibility.batch.parallelism:0}")
+    private int parallelism;
+
+    private ExecutorService workers;
+
+    @PostConstruct
+    public void start() {
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "eligibility-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    // Returns the number of lines processed; snapshot comes from EligibilityIndex.snapshot()
+    public long evaluate(EligibilityIndex snapshot, InputStream in, OutputStream out) throws IOException {
+        LineReader reader = new LineReader(new InputStreamReader(in, StandardCharsets.UTF_8), maxLineLength);
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        int window = parallelism * 2;
+        long lineNumber = 0;
+        try {
+            Chunk chunk = new Chunk(chunkSize);
+            while (reader.next()) {
+                lineNumber++;
+                String line = reader.line();
+                if (line != null && line.isBlank()) {
+                    continue;
+                }
+                chunk.add(lineNumber, line);
+                if (chunk.size() >= chunkSize) {
+                    Chunk full = chunk;
+                    pending.add(workers.submit(() -> evaluate(snapshot, full)));
+                    chunk = new Chunk(chunkSize);
+                    while (pending.size() >= window) {
+                        if (!write(pending.poll(), out)) {
+                            return lineNumber;
+                        }
+                    }
+                }
+            }
+            if (chunk.size() > 0) {
+                Chunk last = chunk;
+                pending.add(workers.submit(() -> evaluate(snapshot, last)));
+            }
+            while (!pending.isEmpty()) {
+                if (!write(pending.poll(), out)) {
+                    return lineNumber;
+                }
+            }
+            return lineNumber;
+        } finally {
+            // Client went away or a chunk failed: drop whatever is still queued
+            for (Future<byte[]> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    // False if the chunk failed, after writing the terminal error record
+    private boolean write(Future<byte[]> result, OutputStream out) throws IOException {
+        byte[] lines;
+        try {
+            lines = result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while evaluating eligibility batch", e);
+        } catch (ExecutionException e) {
+            log.error("Failed to evaluate eligibility batch", e.getCause());
+            // writeValueAsBytes: writeValue would close the response stream
+            out.write(objectMapper.writeValueAsBytes(new EligibilityBatchResult(null, null, null,
+                    "Batch stopped: evaluation failed, no results follow")));
+            out.write('\n');
+            out.flush();
+            return false;
+        }
+        out.write(lines);
+        out.flush();
+        return true;
+    }
+
+    private byte[] evaluate(EligibilityIndex snapshot, Chunk chunk) throws IOException {
+        EligibilityBatchResult[] results = new EligibilityBatchResult[chunk.size()];
+        List<User> users = new ArrayList<>(chunk.size());
+        List<Integer> positions = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (chunk.lines.get(i) == null) {
+                results[i] = new EligibilityBatchResult(chunk.lineNumbers[i], null, null,
+                        "Line longer than " + maxLineLength + " characters");
+                continue;
+            }
+            try {
+                EligibilityProfile profile = objectMapper.readValue(chunk.lines.get(i), EligibilityProfile.class);
+                results[i] = new EligibilityBatchResult(chunk.lineNumbers[i], profile.getRef(), null, null);
+                users.add(toUser(profile));
+                positions.add(i);
+            } catch (JsonProcessingException e) {
+                results[i] = new EligibilityBatchResult(chunk.lineNumbers[i], null, null, "Invalid profile: " + e.getOriginalMessage());
+            }
+        }
+
+        try {
+            List<List<String>> eligible = snapshot.eligibleSchemeIds(users);
+            for (int i = 0; i < positions.size(); i++) {
+                results[positions.get(i)].setSchemeIds(eligible.get(i));
+            }
+        } catch (RuntimeException e) {
+            // Fail the chunk's lines, not the stream
+            log.error("Failed to evaluate eligibility for lines {}-{}", chunk.lineNumbers[0], chunk.lineNumbers[chunk.size() - 1], e);
+            for (int position : positions) {
+                results[position].setError("Evaluation failed");
+            }
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(chunk.size() * 128);
+        for (EligibilityBatchResult result : results) {
+            objectMapper.writeValue(buffer, result);
+            buffer.write('\n');
+        }
+        return buffer.toByteArray();
+    }
+
+    private static User toUser(EligibilityProfile profile) {
+        User user = new User();
+        user.setAge(profile.getAge());
+        user.setState(profile.getState());
+        user.setDistrict(profile.getDistrict());
+        user.setGender(profile.getGender());
+        user.setCategory(profile.getCategory());
+        user.setOccupation(profile.getOccupation());
+        user.setAnnualIncome(profile.getAnnualIncome());
+        return user;
+    }
+
+    private static class Chunk {
+
+        private final long[] lineNumbers;
+
+        private final List<String> lines;
+
+        Chunk(int capacity) {
+            this.lineNumbers = new long[capacity];
+            this.lines = new ArrayList<>(capacity);
+        }
+
+        void add(long lineNumber, String line) {
+            lineNumbers[lines.size()] = lineNumber;
+            lines.add(line);
+        }
+
+        int size() {
+            return lines.size();
+        }
+    }
+
+    // Lines as BufferedReader.readLine splits them (\n, \r or \r\n), except that a line longer than
+    // maxLength is skipped to its end without being buffered and comes back as null
+    private static class LineReader {
+
+        private final Reader in;
+
+        private final int maxLength;
+
+        private final char[] buffer = new char[8192];
+
+        private final StringBuilder current = new StringBuilder();
+
+        private int position;
+
+        private int limit;
+
+        private boolean skipLineFeed;
+
+        private String line;
+
+        LineReader(Reader in, int maxLength) {
+            this.in = in;
+            this.maxLength = maxLength;
+        }
+
+        // False at the end of input; otherwise the line is in line()
+        boolean next() throws IOException {
+            current.setLength(0);
+            boolean started = false;
+            boolean tooLong = false;
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(0, in.read(buffer, 0, buffer.length));
+                    position = 0;
+                    if (limit == 0) {
+                        line = tooLong ? null : current.toString();
+                        return started;
+                    }
+                }
+                char c = buffer[position++];
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (c == '\n') {
+                        continue;
+                    }
+                }
+                started = true;
+                if (c == '\n' || c == '\r') {
+                    skipLineFeed = c == '\r';
+                    line = tooLong ? null : current.toString();
+                    return true;
+                }
+                if (tooLong) {
+                    continue;
+                }
+                if (current.length() == maxLength) {
+                    tooLong = true;
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+        }
+
+        String line() {
+            return line;
+        }
+    }
+}
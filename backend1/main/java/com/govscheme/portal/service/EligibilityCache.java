@@ -0,0 +1,92 @@
+package com.govscheme.portal.service;
+
+import com.govscheme.portal.dto.CacheStats;
+import com.govscheme.portal.dto.SchemeFilter;
+import com.govscheme.portal.dto.SchemeFilterResult;
+import com.govscheme.portal.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Eligibility results memoized by profile signature (see EligibilityIndex.signature), shared by
+// the per-user path and the anonymous filter path. Many users share a signature, so popular
+// profiles are answered without touching the index. Bounded LRU; everything is dropped when
+// the indexed catalog changes.
+@Component
+public class EligibilityCache {
+
+    @Autowired
+    private EligibilityIndex eligibilityIndex;
+
+    @Value("${app.eligibility.cache.max-size:10000}")
+    private int maxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Guarded by this; access order makes it an LRU
+    private final Map<String, Object> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+            if (size() > maxSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private long generation = -1;
+
+    public Set<String> eligibleSchemeIds(User user) {
+        return lookup("user|" + eligibilityIndex.signature(user),
+                () -> Set.copyOf(eligibilityIndex.eligibleSchemeIds(user)));
+    }
+
+    // Free-text filters depend on the search index as well, so only attribute filters are cached
+    public SchemeFilterResult filter(SchemeFilter filter) {
+        if (filter.getQuery() != null && !filter.getQuery().isBlank()) {
+            return eligibilityIndex.filter(filter, null);
+        }
+        return lookup("filter|" + eligibilityIndex.signature(filter),
+                () -> eligibilityIndex.filter(filter, null));
+    }
+
+    public synchronized CacheStats getStats() {
+        return CacheStats.of("eligibility", entries.size(), maxSize, hits.get(), misses.get(), evictions.get());
+    }
+
+    // Signatures embed the index generation, so a result computed across a catalog change is
+    // stored under the old generation and never served for the new one
+    @SuppressWarnings("unchecked")
+    private <T> T lookup(String key, Supplier<T> loader) {
+        synchronized (this) {
+            long current = eligibilityIndex.generation();
+            if (current != generation) {
+                entries.clear();
+                generation = current;
+            }
+            Object cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return (T) cached;
+            }
+        }
+
+        misses.incrementAndGet();
+        T value = loader.get();
+        synchronized (this) {
+            entries.put(key, value);
+        }
+        return value;
+    }
+}
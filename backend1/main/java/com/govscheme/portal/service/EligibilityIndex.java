@@ -0,0 +1,919 @@
+package com.govscheme.portal.service;
+
+import com.govscheme.portal.dto.SchemeFilter;
+import com.govscheme.portal.dto.SchemeFilterResult;
+import com.govscheme.portal.dto.SchemeSummary;
+import com.govscheme.portal.event.SchemeChangedEvent;
+import com.govscheme.portal.model.EligibilityRule;
+import com.govscheme.portal.model.EligibilityRuleGroup;
+import com.govscheme.portal.model.Scheme;
+import com.govscheme.portal.model.User;
+import com.govscheme.portal.repository.SchemeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// In-memory eligibility index over the active scheme catalog. Every active scheme owns a slot,
+// and each attribute value maps to the bitset of slots accepting it, so a user's eligible
+// schemes are the AND of one bitset per criterion.
+@Component
+public class EligibilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(EligibilityIndex.class);
+
+    private static final String ALL = "All";
+
+    private static final int DEFAULT_FILTER_LIMIT = 20;
+
+    private static final int MAX_FILTER_LIMIT = 500;
+
+    private static final long CATCH_UP_RETRY_MS = 1000;
+
+    // A field's dictionary is compacted once it holds more than this many codes per code the
+    // index still uses, plus COMPACT_SLACK, so a small catalog is not rebuilt on every edit
+    private static final int COMPACT_RATIO = 2;
+
+    private static final int COMPACT_SLACK = 64;
+
+    @Autowired
+    private SchemeRepository schemeRepository;
+
+    @Autowired
+    private CatalogVersionPublisher catalogVersionPublisher;
+
+    @Autowired
+    private AttributeDictionary attributeDictionary;
+
+    @Autowired
+    private BackgroundFailures backgroundFailures;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Held by the one reader applying changes published elsewhere; the others keep reading meanwhile
+    private final ReentrantLock catchUpLock = new ReentrantLock();
+
+    // After a failed catch-up, readers do not retry it before this time
+    private volatile long catchUpRetryAt = 0;
+
+    private final List<Scheme> slots = new ArrayList<>();
+
+    private final Map<String, Integer> slotsById = new HashMap<>();
+
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    private final BitSet live = new BitSet();
+
+    private final AttributeIndex states = new AttributeIndex(AttributeDictionary.STATE, Scheme::getEligibleStates);
+
+    private final AttributeIndex genders = new AttributeIndex(AttributeDictionary.GENDER, Scheme::getEligibleGenders);
+
+    private final AttributeIndex categories = new AttributeIndex(AttributeDictionary.CATEGORY, Scheme::getEligibleCategories);
+
+    private final AttributeIndex occupations = new AttributeIndex(AttributeDictionary.OCCUPATION, Scheme::getEligibleOccupations);
+
+    private final AttributeIndex districts = new AttributeIndex(AttributeDictionary.DISTRICT, Scheme::getEligibleDistricts);
+
+    private final RangeIndex<Integer> minAges = new RangeIndex<>(Scheme::getMinAge);
+
+    private final RangeIndex<Integer> maxAges = new RangeIndex<>(Scheme::getMaxAge);
+
+    private final RangeIndex<Double> maxIncomes = new RangeIndex<>(Scheme::getMaxIncome);
+
+    // Scheme category (Education, Health, ...) for faceting; unrelated to the social category index above
+    private final Map<String, BitSet> schemeCategories = new HashMap<>();
+
+    // Rule groups are not expressible as bitsets: schemes that have them also run a program of just
+    // their rule groups, but only after the bitsets have passed them, so the common path is unchanged
+    private final BitSet ruled = new BitSet();
+
+    private final Map<Integer, EligibilityProgram> programs = new HashMap<>();
+
+    private final RuleVocabulary ruleVocabulary = new RuleVocabulary();
+
+    // The dictionary codes every structure above is keyed by; replaced on rebuild
+    private Map<String, AttributeDictionary.Codes> codes;
+
+    private volatile boolean loaded = false;
+
+    // Set on snapshot() copies, which never move past the version they were taken at
+    private boolean pinned = false;
+
+    // Catalog version of each scheme last applied, deleted ones included, so a catch-up read
+    // before a local change cannot undo it
+    private final Map<String, Long> appliedVersions = new HashMap<>();
+
+    // Bumped on every change to the indexed catalog; cached results from an older generation are stale
+    private volatile long generation = 0;
+
+    // Published catalog version the indexed schemes are at least as new as
+    private volatile long catalogVersion = 0;
+
+    public List<Scheme> eligibleSchemes(User user) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            BitSet result = eligibleSlots(user);
+            List<Scheme> eligible = new ArrayList<>(result.cardinality());
+            for (int slot = result.nextSetBit(0); slot >= 0; slot = result.nextSetBit(slot + 1)) {
+                eligible.add(slots.get(slot));
+            }
+            return eligible;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Set<String> eligibleSchemeIds(User user) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(ids(eligibleSlots(user)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Evaluates the whole batch under one read lock, so every profile in it sees the same catalog
+    public List<List<String>> eligibleSchemeIds(List<User> users) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            List<List<String>> results = new ArrayList<>(users.size());
+            for (User user : users) {
+                results.add(ids(eligibleSlots(user)));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The active schemes among the given ids, skipping any deactivated since the ids were stored
+    public List<Scheme> resolve(Collection<String> schemeIds) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            List<Scheme> schemes = new ArrayList<>(schemeIds.size());
+            for (String id : schemeIds) {
+                Integer slot = slotsById.get(id);
+                if (slot != null) {
+                    schemes.add(slots.get(slot));
+                }
+            }
+            return schemes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long generation() {
+        return generation;
+    }
+
+    public long catalogVersion() {
+        return catalogVersion;
+    }
+
+    // A private copy of the current index that no later change touches, for evaluations that
+    // must see one catalog from start to end however long they run (batch eligibility). Slots
+    // are re-added from the live schemes, which is cheap next to the evaluation itself.
+    public EligibilityIndex snapshot() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            EligibilityIndex copy = new EligibilityIndex();
+            copy.attributeDictionary = attributeDictionary;
+            copy.backgroundFailures = backgroundFailures;
+            copy.bind(codes);
+            for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                // Programs are shared rather than recompiled; they are safe to run concurrently
+                copy.addSlot(slots.get(slot), programs.get(slot));
+            }
+            copy.generation = generation;
+            copy.catalogVersion = catalogVersion;
+            copy.loaded = true;
+            copy.pinned = true;
+            return copy;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Canonical key for everything eligibleSchemeIds(user) depends on. Ages and incomes are
+    // reduced to their position among the catalog's bounds, and attribute values no scheme
+    // lists collapse to "*", so profiles with identical outcomes share a signature.
+    public String signature(User user) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return "g" + generation
+                    + "|a" + ageBucket(user.getAge())
+                    + "|i" + incomeBucket(user.getAnnualIncome())
+                    + "|s" + canonical(states, "state", user.getState())
+                    + "|d" + canonical(districts, "district", user.getDistrict())
+                    + "|g" + canonical(genders, "gender", user.getGender())
+                    + "|c" + canonical(categories, "category", user.getCategory())
+                    + "|o" + canonical(occupations, "occupation", user.getOccupation())
+                    + "|r" + ruleVocabulary.bucket(user);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Same idea for filter(); unset fields stay empty, which differs from "*" (set, but to an unlisted value)
+    public String signature(SchemeFilter filter) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Integer fromAge = filter.getAge() != null ? filter.getAge() : filter.getMinAge();
+            Integer toAge = filter.getAge() != null ? filter.getAge() : filter.getMaxAge();
+            return "g" + generation
+                    + "|a" + (toAge != null ? minAges.countAtMost(toAge) : "") + "." + (fromAge != null ? maxAges.countBelow(fromAge) : "")
+                    + "|i" + (filter.getAnnualIncome() != null ? incomeBucket(filter.getAnnualIncome()) : "")
+                    + "|k" + (isSet(filter.getCategory()) ? (schemeCategories.containsKey(filter.getCategory()) ? filter.getCategory() : "*") : "")
+                    + "|s" + (isSet(filter.getState()) ? states.canonical(filter.getState()) : "")
+                    + "|d" + (isSet(filter.getDistrict()) ? districts.canonical(filter.getDistrict()) : "")
+                    + "|g" + (isSet(filter.getGender()) ? genders.canonical(filter.getGender()) : "")
+                    + "|c" + (isSet(filter.getSocialCategory()) ? categories.canonical(filter.getSocialCategory()) : "")
+                    + "|o" + (isSet(filter.getOccupation()) ? occupations.canonical(filter.getOccupation()) : "")
+                    + "|l" + filter.getLimit() + "." + filter.getOffset();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Outcome of both age bounds: how many minAge bounds the age reaches, how many maxAge bounds it exceeds
+    private String ageBucket(Integer age) {
+        return age != null ? minAges.countAtMost(age) + "." + maxAges.countBelow(age) : "-";
+    }
+
+    // A value only a rule group mentions is not interchangeable with unlisted ones
+    private String canonical(AttributeIndex index, String field, String value) {
+        int code = codes.get(field).code(value);
+        return ruleVocabulary.knows(field, code) ? "r" + code : index.canonical(value);
+    }
+
+    private String incomeBucket(Double income) {
+        return income != null ? String.valueOf(maxIncomes.countBelow(income)) : "-";
+    }
+
+    // Caller holds the read lock
+    private BitSet eligibleSlots(User user) {
+        BitSet result = (BitSet) live.clone();
+
+        // Age bounds: minAge <= age <= maxAge
+        result.and(minAges.atMost(user.getAge()));
+        result.and(maxAges.atLeast(user.getAge()));
+
+        // A user without a declared income is not filtered on income
+        if (user.getAnnualIncome() != null) {
+            result.and(maxIncomes.atLeast(user.getAnnualIncome()));
+        }
+
+        result.and(states.matching(user.getState()));
+        result.and(genders.matching(user.getGender()));
+        result.and(categories.matching(user.getCategory()));
+        result.and(occupations.matching(user.getOccupation()));
+        result.and(districts.matching(user.getDistrict()));
+
+        BitSet needsProgram = (BitSet) result.clone();
+        needsProgram.and(ruled);
+        for (int slot = needsProgram.nextSetBit(0); slot >= 0; slot = needsProgram.nextSetBit(slot + 1)) {
+            if (!programs.get(slot).test(user)) {
+                result.clear(slot);
+            }
+        }
+        return result;
+    }
+
+    // Matching schemes for a partial profile, with facet counts per category, state and occupation.
+    // Each facet is counted under every filter except its own, so selecting a state still shows
+    // how many schemes the other states would match. restrictTo limits the result to the given
+    // scheme ids (search hits); null means no restriction. Rule groups are not applied: a partial
+    // profile cannot decide them, so such schemes are shown as possible matches.
+    public SchemeFilterResult filter(SchemeFilter filter, Set<String> restrictTo) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            BitSet base = (BitSet) live.clone();
+            if (restrictTo != null) {
+                BitSet allowed = new BitSet();
+                for (String id : restrictTo) {
+                    Integer slot = slotsById.get(id);
+                    if (slot != null) {
+                        allowed.set(slot);
+                    }
+                }
+                base.and(allowed);
+            }
+
+            // An exact age must fall inside the scheme's range; a min/max pair must overlap it
+            Integer fromAge = filter.getAge() != null ? filter.getAge() : filter.getMinAge();
+            Integer toAge = filter.getAge() != null ? filter.getAge() : filter.getMaxAge();
+            if (toAge != null) {
+                base.and(minAges.atMost(toAge));
+            }
+            if (fromAge != null) {
+                base.and(maxAges.atLeast(fromAge));
+            }
+            if (filter.getAnnualIncome() != null) {
+                base.and(maxIncomes.atLeast(filter.getAnnualIncome()));
+            }
+            if (isSet(filter.getGender())) {
+                base.and(genders.matching(filter.getGender()));
+            }
+            if (isSet(filter.getSocialCategory())) {
+                base.and(categories.matching(filter.getSocialCategory()));
+            }
+            if (isSet(filter.getDistrict())) {
+                base.and(districts.matching(filter.getDistrict()));
+            }
+
+            BitSet categoryBits = isSet(filter.getCategory())
+                    ? schemeCategories.getOrDefault(filter.getCategory(), new BitSet())
+                    : null;
+            BitSet stateBits = isSet(filter.getState()) ? states.matching(filter.getState()) : null;
+            BitSet occupationBits = isSet(filter.getOccupation()) ? occupations.matching(filter.getOccupation()) : null;
+
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            facets.put("category", countEach(schemeCategories, new BitSet(), intersect(base, stateBits, occupationBits)));
+            facets.put("state", states.counts(intersect(base, categoryBits, occupationBits)));
+            facets.put("occupation", occupations.counts(intersect(base, categoryBits, stateBits)));
+
+            BitSet result = intersect(base, categoryBits, stateBits, occupationBits);
+            List<Scheme> matches = new ArrayList<>(result.cardinality());
+            for (int slot = result.nextSetBit(0); slot >= 0; slot = result.nextSetBit(slot + 1)) {
+                matches.add(slots.get(slot));
+            }
+            matches.sort(Comparator.comparing(Scheme::getName, Comparator.nullsLast(Comparator.naturalOrder())));
+
+            // Summaries are paged by offset/limit over the name order; ids always cover every match
+            int limit = filter.getLimit() != null ? Math.min(Math.max(filter.getLimit(), 0), MAX_FILTER_LIMIT) : DEFAULT_FILTER_LIMIT;
+            int offset = filter.getOffset() != null ? Math.max(filter.getOffset(), 0) : 0;
+            List<String> ids = new ArrayList<>(matches.size());
+            List<SchemeSummary> summaries = new ArrayList<>(Math.max(0, Math.min(limit, matches.size() - offset)));
+            for (int i = 0; i < matches.size(); i++) {
+                Scheme scheme = matches.get(i);
+                ids.add(scheme.getId());
+                if (i >= offset && summaries.size() < limit) {
+                    summaries.add(SchemeSummary.of(scheme));
+                }
+            }
+            return new SchemeFilterResult(matches.size(), ids, summaries, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onSchemeChanged(SchemeChangedEvent event) {
+        upsert(event.getScheme(), event.getRules());
+    }
+    
+    // rules is the scheme's rule-group program as compiled when it was saved, or null to compile here
+    public void upsert(Scheme scheme, EligibilityProgram rules) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                // The first read loads the catalog, which will already contain this scheme
+                return;
+            }
+            // catalogVersion stays put: versions before this one may come from other instances,
+            // and only catchUp() can vouch for having applied them
+            apply(scheme, rules);
+            generation++;
+            compactIfStale();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            // Read under the write lock so no concurrent upsert can be overwritten by a stale catalog.
+            // Version first: every scheme read afterwards is at least that new.
+            long version = schemeRepository.currentCatalogVersion();
+            List<Scheme> activeSchemes = schemeRepository.findByIsActiveTrue();
+            slots.clear();
+            slotsById.clear();
+            freeSlots.clear();
+            live.clear();
+            states.clear();
+            genders.clear();
+            categories.clear();
+            occupations.clear();
+            minAges.clear();
+            maxAges.clear();
+            maxIncomes.clear();
+            districts.clear();
+            schemeCategories.clear();
+            ruled.clear();
+            programs.clear();
+            ruleVocabulary.clear();
+            appliedVersions.clear();
+            // Encode the catalog afresh, so values no active scheme uses any more lose their codes.
+            // The schemes were encoded as they loaded; re-encoding only touches the strings.
+            bind(attributeDictionary.compact());
+            activeSchemes.forEach(scheme -> apply(scheme, null));
+            catalogVersion = version;
+            generation++;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The write lock rather than a monitor, so a virtual thread waiting out the initial load
+    // does not pin its carrier for the length of the Mongo read
+    private void ensureLoaded() {
+        if (!loaded) {
+            lock.writeLock().lock();
+            try {
+                if (!loaded) {
+                    rebuild();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        catchUp();
+    }
+
+    // Changes made through other instances only reach this one through the published catalog
+    // version, so once it moves past ours, apply the schemes written in between. One reader does
+    // the Mongo read while the rest carry on with the index as it is.
+    private void catchUp() {
+        if (pinned || System.currentTimeMillis() < catchUpRetryAt
+                || catalogVersionPublisher.published() <= catalogVersion || !catchUpLock.tryLock()) {
+            return;
+        }
+        long from = catalogVersion;
+        try {
+            long to = catalogVersionPublisher.published();
+            if (to <= from) {
+                return;
+            }
+            List<Scheme> changed = schemeRepository.findChangedBetween(from, to);
+            lock.writeLock().lock();
+            try {
+                if (catalogVersion != from) {
+                    // A rebuild got there first
+                    return;
+                }
+                changed.forEach(scheme -> apply(scheme, null));
+                catalogVersion = to;
+                generation++;
+                compactIfStale();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (RuntimeException e) {
+            catchUpRetryAt = System.currentTimeMillis() + CATCH_UP_RETRY_MS;
+            log.error("Failed to apply catalog changes after version {}; serving the index as it is", from, e);
+        } finally {
+            catchUpLock.unlock();
+        }
+    }
+
+    private void bind(Map<String, AttributeDictionary.Codes> codes) {
+        this.codes = codes;
+        states.bind(codes);
+        genders.bind(codes);
+        categories.bind(codes);
+        occupations.bind(codes);
+        districts.bind(codes);
+        ruleVocabulary.bind(codes);
+    }
+
+    // Codes are only ever added, so deleted and edited schemes leave theirs behind; once those
+    // outnumber the live ones, rebuild. Caller holds the write lock.
+    private void compactIfStale() {
+        for (AttributeIndex index : List.of(states, genders, categories, occupations, districts)) {
+            BitSet used = index.usedCodes();
+            used.or(ruleVocabulary.usedCodes(index.field));
+            if (index.dictionary.size() > COMPACT_RATIO * used.cardinality() + COMPACT_SLACK) {
+                rebuild();
+                return;
+            }
+        }
+    }
+
+    private void apply(Scheme scheme, EligibilityProgram rules) {
+        Long version = scheme.getCatalogVersion();
+        Long applied = appliedVersions.get(scheme.getId());
+        if (version != null && applied != null && applied > version) {
+            return;
+        }
+        if (version != null) {
+            appliedVersions.put(scheme.getId(), version);
+        }
+        removeSlot(scheme.getId());
+        if (Boolean.TRUE.equals(scheme.getIsActive())) {
+            addSlot(scheme, rules);
+        }
+    }
+
+    private void addSlot(Scheme scheme, EligibilityProgram rules) {
+        int slot;
+        if (freeSlots.isEmpty()) {
+            slot = slots.size();
+            slots.add(scheme);
+        } else {
+            slot = freeSlots.pop();
+            slots.set(slot, scheme);
+        }
+        slotsById.put(scheme.getId(), slot);
+        live.set(slot);
+
+        states.add(slot, scheme);
+        genders.add(slot, scheme);
+        categories.add(slot, scheme);
+        occupations.add(slot, scheme);
+        minAges.add(slot, scheme);
+        maxAges.add(slot, scheme);
+        maxIncomes.add(slot, scheme);
+        districts.add(slot, scheme);
+        if (scheme.getCategory() != null) {
+            schemeCategories.computeIfAbsent(scheme.getCategory(), c -> new BitSet()).set(slot);
+        }
+        if (EligibilityProgram.hasRuleGroups(scheme)) {
+            try {
+                programs.put(slot, rules != null ? rules : EligibilityProgram.compileRuleGroups(scheme, attributeDictionary));
+                ruled.set(slot);
+                ruleVocabulary.add(scheme);
+            } catch (RuntimeException e) {
+                // Rules are validated on save, so this is legacy data; fail closed
+                log.error("Invalid eligibility rules on scheme {}", scheme.getId(), e);
+                backgroundFailures.record("eligibility-rules", e);
+                live.clear(slot);
+            }
+        }
+    }
+
+    private void removeSlot(String schemeId) {
+        Integer slot = slotsById.remove(schemeId);
+        if (slot == null) {
+            return;
+        }
+        Scheme scheme = slots.get(slot);
+
+        states.remove(slot, scheme);
+        genders.remove(slot, scheme);
+        categories.remove(slot, scheme);
+        occupations.remove(slot, scheme);
+        minAges.remove(slot, scheme);
+        maxAges.remove(slot, scheme);
+        maxIncomes.remove(slot, scheme);
+        districts.remove(slot, scheme);
+        if (programs.remove(slot) != null) {
+            ruleVocabulary.remove(scheme);
+        }
+        ruled.clear(slot);
+        BitSet categoryBits = scheme.getCategory() != null ? schemeCategories.get(scheme.getCategory()) : null;
+        if (categoryBits != null) {
+            categoryBits.clear(slot);
+            if (categoryBits.isEmpty()) {
+                schemeCategories.remove(scheme.getCategory());
+            }
+        }
+
+        live.clear(slot);
+        slots.set(slot, null);
+        freeSlots.push(slot);
+    }
+
+    private List<String> ids(BitSet result) {
+        List<String> ids = new ArrayList<>(result.cardinality());
+        for (int slot = result.nextSetBit(0); slot >= 0; slot = result.nextSetBit(slot + 1)) {
+            ids.add(slots.get(slot).getId());
+        }
+        return ids;
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !value.isBlank() && !ALL.equals(value);
+    }
+
+    private static BitSet intersect(BitSet base, BitSet... filters) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    // Per value, how many schemes of `within` it holds, plus the wildcard schemes that accept any value
+    private static Map<String, Integer> countEach(Map<String, BitSet> byValue, BitSet wildcard, BitSet within) {
+        BitSet matchingWildcard = (BitSet) wildcard.clone();
+        matchingWildcard.and(within);
+        int wildcardCount = matchingWildcard.cardinality();
+
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Map.Entry<String, BitSet> entry : byValue.entrySet()) {
+            BitSet matching = (BitSet) entry.getValue().clone();
+            matching.and(within);
+            int count = wildcardCount + matching.cardinality();
+            if (count > 0) {
+                counts.put(entry.getKey(), count);
+            }
+        }
+        return counts;
+    }
+
+    // The values and numeric bounds that rule groups mention, reference-counted per scheme, so
+    // profile signatures can tell apart exactly the inputs the rules can tell apart
+    private static class RuleVocabulary {
+
+        // field -> value code -> number of rules mentioning it
+        private final Map<String, Map<Integer, Integer>> values = new HashMap<>();
+
+        // field -> bound -> number of gte / lte rules using it
+        private final Map<String, TreeMap<Double, Integer>> lowerBounds = new HashMap<>();
+
+        private final Map<String, TreeMap<Double, Integer>> upperBounds = new HashMap<>();
+
+        private Map<String, AttributeDictionary.Codes> codes;
+
+        void bind(Map<String, AttributeDictionary.Codes> codes) {
+            this.codes = codes;
+        }
+
+        boolean knows(String field, int code) {
+            Map<Integer, Integer> known = values.get(field);
+            return code != AttributeDictionary.UNKNOWN && known != null && known.containsKey(code);
+        }
+
+        // Per numeric field: how many gte bounds the value reaches, how many lte bounds it exceeds
+        String bucket(User user) {
+            StringBuilder out = new StringBuilder();
+            for (String field : EligibilityProgram.numericFields()) {
+                TreeMap<Double, Integer> lower = lowerBounds.get(field);
+                TreeMap<Double, Integer> upper = upperBounds.get(field);
+                if (lower == null && upper == null) {
+                    continue;
+                }
+                Number value = EligibilityProgram.numericField(field, user);
+                out.append(field).append(':');
+                if (value == null) {
+                    out.append('-');
+                } else {
+                    double x = value.doubleValue();
+                    out.append(lower != null ? lower.headMap(x, true).size() : 0)
+                            .append('.')
+                            .append(upper != null ? upper.headMap(x, false).size() : 0);
+                }
+                out.append(';');
+            }
+            return out.toString();
+        }
+
+        BitSet usedCodes(String field) {
+            BitSet used = new BitSet();
+            Map<Integer, Integer> known = values.get(field);
+            if (known != null) {
+                known.keySet().forEach(used::set);
+            }
+            return used;
+        }
+
+        void add(Scheme scheme) {
+            update(scheme, 1);
+        }
+
+        void remove(Scheme scheme) {
+            update(scheme, -1);
+        }
+
+        void clear() {
+            values.clear();
+            lowerBounds.clear();
+            upperBounds.clear();
+        }
+
+        private void update(Scheme scheme, int delta) {
+            for (EligibilityRuleGroup group : scheme.getRuleGroups()) {
+                for (EligibilityRule rule : group.getAnyOf()) {
+                    if (rule.getValues() != null) {
+                        AttributeDictionary.Codes dictionary = codes.get(rule.getField());
+                        Map<Integer, Integer> known = values.computeIfAbsent(rule.getField(), f -> new HashMap<>());
+                        for (String value : rule.getValues()) {
+                            if (value != null) {
+                                adjust(known, dictionary.encode(value), delta);
+                            }
+                        }
+                    }
+                    if (rule.getValue() != null) {
+                        Map<String, TreeMap<Double, Integer>> bounds = "gte".equals(rule.getOperator()) ? lowerBounds : upperBounds;
+                        adjust(bounds.computeIfAbsent(rule.getField(), f -> new TreeMap<>()), rule.getValue(), delta);
+                    }
+                }
+            }
+        }
+
+        private static <K> void adjust(Map<K, Integer> counts, K key, int delta) {
+            counts.merge(key, delta, Integer::sum);
+            if (counts.get(key) <= 0) {
+                counts.remove(key);
+            }
+        }
+    }
+
+    // One bitset per listed value, plus a wildcard bitset for schemes with an empty list or "All".
+    // Values are dictionary codes, so the bitsets live in an array indexed by code and a lookup
+    // is one hash probe on the (interned) user value.
+    private static class AttributeIndex {
+
+        private final String field;
+
+        private final Function<Scheme, List<String>> extractor;
+
+        private final List<BitSet> byCode = new ArrayList<>();
+
+        private final BitSet wildcard = new BitSet();
+
+        private AttributeDictionary.Codes dictionary;
+
+        AttributeIndex(String field, Function<Scheme, List<String>> extractor) {
+            this.field = field;
+            this.extractor = extractor;
+        }
+
+        // Only while empty: the bitsets are keyed by the bound dictionary's codes
+        void bind(Map<String, AttributeDictionary.Codes> codes) {
+            this.dictionary = codes.get(field);
+        }
+
+        BitSet usedCodes() {
+            BitSet used = new BitSet();
+            for (int code = 0; code < byCode.size(); code++) {
+                if (byCode.get(code) != null) {
+                    used.set(code);
+                }
+            }
+            return used;
+        }
+
+        BitSet matching(String value) {
+            BitSet result = (BitSet) wildcard.clone();
+            BitSet exact = bits(dictionary.code(value));
+            if (exact != null) {
+                result.or(exact);
+            }
+            return result;
+        }
+
+        // Values no scheme lists all match exactly the wildcard schemes, so they are interchangeable
+        String canonical(String value) {
+            int code = dictionary.code(value);
+            return bits(code) != null ? Integer.toString(code) : "*";
+        }
+
+        Map<String, Integer> counts(BitSet within) {
+            Map<String, BitSet> byValue = new HashMap<>();
+            for (int code = 0; code < byCode.size(); code++) {
+                if (byCode.get(code) != null) {
+                    byValue.put(dictionary.decode(code), byCode.get(code));
+                }
+            }
+            return countEach(byValue, wildcard, within);
+        }
+
+        void add(int slot, Scheme scheme) {
+            List<String> values = extractor.apply(scheme);
+            if (values == null || values.isEmpty() || values.contains(ALL)) {
+                wildcard.set(slot);
+                return;
+            }
+            for (String value : values) {
+                if (value == null) {
+                    continue;
+                }
+                int code = dictionary.encode(value);
+                while (byCode.size() <= code) {
+                    byCode.add(null);
+                }
+                if (byCode.get(code) == null) {
+                    byCode.set(code, new BitSet());
+                }
+                byCode.get(code).set(slot);
+            }
+        }
+
+        void remove(int slot, Scheme scheme) {
+            wildcard.clear(slot);
+            List<String> values = extractor.apply(scheme);
+            if (values == null) {
+                return;
+            }
+            for (String value : values) {
+                int code = dictionary.code(value);
+                BitSet bits = bits(code);
+                if (bits != null) {
+                    bits.clear(slot);
+                    if (bits.isEmpty()) {
+                        byCode.set(code, null);
+                    }
+                }
+            }
+        }
+
+        void clear() {
+            byCode.clear();
+            wildcard.clear();
+        }
+
+        private BitSet bits(int code) {
+            return code >= 0 && code < byCode.size() ? byCode.get(code) : null;
+        }
+    }
+
+    // Schemes grouped by a numeric bound in sorted order, plus the schemes that set no bound
+    private static class RangeIndex<K extends Comparable<K>> {
+
+        private final Function<Scheme, K> extractor;
+
+        private final TreeMap<K, BitSet> byBound = new TreeMap<>();
+
+        private final BitSet unbounded = new BitSet();
+
+        RangeIndex(Function<Scheme, K> extractor) {
+            this.extractor = extractor;
+        }
+
+        // Schemes whose bound is <= value (a lower bound the value satisfies)
+        BitSet atMost(K value) {
+            return union(value != null ? byBound.headMap(value, true) : null);
+        }
+
+        // Schemes whose bound is >= value (an upper bound the value satisfies)
+        BitSet atLeast(K value) {
+            return union(value != null ? byBound.tailMap(value, true) : null);
+        }
+
+        int countAtMost(K value) {
+            return byBound.headMap(value, true).size();
+        }
+
+        int countBelow(K value) {
+            return byBound.headMap(value, false).size();
+        }
+
+        private BitSet union(NavigableMap<K, BitSet> range) {
+            BitSet result = (BitSet) unbounded.clone();
+            if (range != null) {
+                range.values().forEach(result::or);
+            }
+            return result;
+        }
+
+        void add(int slot, Scheme scheme) {
+            K bound = extractor.apply(scheme);
+            if (bound == null) {
+                unbounded.set(slot);
+            } else {
+                byBound.computeIfAbsent(bound, b -> new BitSet()).set(slot);
+            }
+        }
+
+        void remove(int slot, Scheme scheme) {
+            unbounded.clear(slot);
+            K bound = extractor.apply(scheme);
+            BitSet bits = bound != null ? byBound.get(bound) : null;
+            if (bits != null) {
+                bits.clear(slot);
+                if (bits.isEmpty()) {
+                    byBound.remove(bound);
+                }
+            }
+        }
+
+        void clear() {
+            byBound.clear();
+            unbounded.clear();
+        }
+    }
+}
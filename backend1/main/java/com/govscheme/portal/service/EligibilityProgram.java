@@ -0,0 +1,314 @@
+package com.govscheme.portal.service;
+
+import com.govscheme.portal.model.EligibilityRule;
+import com.govscheme.portal.model.EligibilityRuleGroup;
+import com.govscheme.portal.model.Scheme;
+import com.govscheme.portal.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// A scheme's eligibility criteria compiled into a flat list of checks: list criteria become
+// bitmasks of dictionary codes, age and income become primitive comparisons, and each rule group becomes one
+// OR check. The checks are ordered once, on compile, by estimated rejection rate per unit of cost,
+// so the ones that most cheaply rule a user out run first. Immutable, so one program can be
+// shared by any number of threads and index snapshots.
+public final class EligibilityProgram {
+
+    private static final String ALL = "All";
+
+    // Pass rate assumed for numeric bounds, which have no dictionary to estimate it from
+    private static final double NUMERIC_PASS_RATE = 0.5;
+
+    private static final Map<String, Function<User, String>> TEXT_FIELDS = Map.of(
+            "state", User::getState,
+            "district", User::getDistrict,
+            "gender", User::getGender,
+            "category", User::getCategory,
+            "occupation", User::getOccupation
+    );
+
+    private static final Map<String, Function<User, Number>> NUMERIC_FIELDS = Map.of(
+            "age", User::getAge,
+            "annualIncome", User::getAnnualIncome
+    );
+
+    private final Check[] checks;
+
+    private EligibilityProgram(List<Check> checks) {
+        Check[] ordered = checks.toArray(new Check[0]);
+        Arrays.sort(ordered, Comparator.comparingDouble(Check::priority).reversed());
+        this.checks = ordered;
+    }
+
+    // Throws on rules that reference unknown fields or operators, so bad rules are rejected on save.
+    // List values are encoded against the dictionary's current codes, which the program keeps.
+    public static EligibilityProgram compile(Scheme scheme, AttributeDictionary dictionary) {
+        List<Check> checks = new ArrayList<>();
+
+        if (scheme.getMinAge() != null || scheme.getMaxAge() != null) {
+            checks.add(new AgeRange(
+                    scheme.getMinAge() != null ? scheme.getMinAge() : Integer.MIN_VALUE,
+                    scheme.getMaxAge() != null ? scheme.getMaxAge() : Integer.MAX_VALUE));
+        }
+        if (scheme.getMaxIncome() != null) {
+            checks.add(new IncomeCap(scheme.getMaxIncome()));
+        }
+        addMembership(checks, dictionary, "state", scheme.getEligibleStates());
+        addMembership(checks, dictionary, "district", scheme.getEligibleDistricts());
+        addMembership(checks, dictionary, "gender", scheme.getEligibleGenders());
+        addMembership(checks, dictionary, "category", scheme.getEligibleCategories());
+        addMembership(checks, dictionary, "occupation", scheme.getEligibleOccupations());
+        addRuleGroups(checks, dictionary, scheme);
+
+        return new EligibilityProgram(checks);
+    }
+
+    // Only the rule groups, for callers that have already applied the age, income and list
+    // criteria (the eligibility index's bitsets); null when the scheme has none. Rule groups
+    // are the only part of a scheme that can fail to compile, so this is also the save check.
+    public static EligibilityProgram compileRuleGroups(Scheme scheme, AttributeDictionary dictionary) {
+        List<Check> checks = new ArrayList<>();
+        addRuleGroups(checks, dictionary, scheme);
+        return checks.isEmpty() ? null : new EligibilityProgram(checks);
+    }
+
+    public static boolean hasRuleGroups(Scheme scheme) {
+        return scheme.getRuleGroups() != null && !scheme.getRuleGroups().isEmpty();
+    }
+
+    static Number numericField(String field, User user) {
+        return NUMERIC_FIELDS.get(field).apply(user);
+    }
+
+    static Set<String> numericFields() {
+        return NUMERIC_FIELDS.keySet();
+    }
+
+    public boolean test(User user) {
+        for (Check check : checks) {
+            if (!check.test(user)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addRuleGroups(List<Check> checks, AttributeDictionary dictionary, Scheme scheme) {
+        if (scheme.getRuleGroups() == null) {
+            return;
+        }
+        for (EligibilityRuleGroup group : scheme.getRuleGroups()) {
+            if (group == null || group.getAnyOf() == null || group.getAnyOf().isEmpty()) {
+                throw new RuntimeException("Rule group must contain at least one rule");
+            }
+            Check[] rules = group.getAnyOf().stream()
+                    .map(rule -> compileRule(rule, dictionary))
+                    .toArray(Check[]::new);
+            checks.add(rules.length == 1 ? rules[0] : new AnyOf(rules));
+        }
+    }
+
+    private static void addMembership(List<Check> checks, AttributeDictionary dictionary, String field, List<String> values) {
+        if (values == null || values.isEmpty() || values.contains(ALL)) {
+            return;
+        }
+        checks.add(new Membership(field, dictionary.of(field), values, false));
+    }
+
+    private static Check compileRule(EligibilityRule rule, AttributeDictionary dictionary) {
+        if (rule == null || rule.getField() == null || rule.getOperator() == null) {
+            throw new RuntimeException("Rule needs a field and an operator");
+        }
+        switch (rule.getOperator()) {
+            case "in", "notIn" -> {
+                if (!TEXT_FIELDS.containsKey(rule.getField())) {
+                    throw new RuntimeException("Unsupported field for " + rule.getOperator() + ": " + rule.getField());
+                }
+                if (rule.getValues() == null || rule.getValues().isEmpty()) {
+                    throw new RuntimeException("Rule on " + rule.getField() + " needs values");
+                }
+                return new Membership(rule.getField(), dictionary.of(rule.getField()), rule.getValues(),
+                        rule.getOperator().equals("notIn"));
+            }
+            case "gte", "lte" -> {
+                Function<User, Number> field = NUMERIC_FIELDS.get(rule.getField());
+                if (field == null) {
+                    throw new RuntimeException("Unsupported field for " + rule.getOperator() + ": " + rule.getField());
+                }
+                if (rule.getValue() == null) {
+                    throw new RuntimeException("Rule on " + rule.getField() + " needs a value");
+                }
+                return new Threshold(field, rule.getValue(), rule.getOperator().equals("gte"));
+            }
+            default -> throw new RuntimeException("Unsupported rule operator: " + rule.getOperator());
+        }
+    }
+
+    private abstract static class Check {
+
+        private final double cost;
+
+        // Estimated share of users that pass
+        private final double passRate;
+
+        Check(double cost, double passRate) {
+            this.cost = cost;
+            this.passRate = passRate;
+        }
+
+        double priority() {
+            return (1 - passRate) / cost;
+        }
+
+        abstract boolean test(User user);
+    }
+
+    // Like the index: a user without an age only passes schemes without age bounds
+    private static class AgeRange extends Check {
+
+        private final int min;
+
+        private final int max;
+
+        AgeRange(int min, int max) {
+            super(1, NUMERIC_PASS_RATE);
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        boolean test(User user) {
+            Integer age = user.getAge();
+            if (age == null) {
+                return false;
+            }
+            int value = age;
+            return value >= min && value <= max;
+        }
+    }
+
+    // A user without a declared income is not filtered on income
+    private static class IncomeCap extends Check {
+
+        private final double max;
+
+        IncomeCap(double max) {
+            super(1, NUMERIC_PASS_RATE);
+            this.max = max;
+        }
+
+        @Override
+        boolean test(User user) {
+            Double income = user.getAnnualIncome();
+            return income == null || income <= max;
+        }
+    }
+
+    private static class Membership extends Check {
+
+        private final Function<User, String> field;
+
+        private final AttributeDictionary.Codes dictionary;
+
+        private final BitSet codes;
+
+        private final boolean negated;
+
+        Membership(String field, AttributeDictionary.Codes dictionary, List<String> values, boolean negated) {
+            this(field, dictionary, encode(dictionary, values), negated);
+        }
+
+        // Assumes users spread evenly over the values schemes mention
+        private Membership(String field, AttributeDictionary.Codes dictionary, BitSet codes, boolean negated) {
+            super(2, listedShare(dictionary, codes, negated));
+            this.field = TEXT_FIELDS.get(field);
+            this.dictionary = dictionary;
+            this.codes = codes;
+            this.negated = negated;
+        }
+
+        private static BitSet encode(AttributeDictionary.Codes dictionary, List<String> values) {
+            BitSet codes = new BitSet();
+            for (String value : values) {
+                if (value != null) {
+                    codes.set(dictionary.encode(value));
+                }
+            }
+            return codes;
+        }
+
+        private static double listedShare(AttributeDictionary.Codes dictionary, BitSet codes, boolean negated) {
+            double listed = Math.min(1.0, (double) codes.cardinality() / Math.max(1, dictionary.size()));
+            return negated ? 1 - listed : listed;
+        }
+
+        // A value without a code is one no scheme lists, so it is in no set
+        @Override
+        boolean test(User user) {
+            String value = field.apply(user);
+            if (value == null) {
+                return negated;
+            }
+            int code = dictionary.code(value);
+            return (code != AttributeDictionary.UNKNOWN && codes.get(code)) != negated;
+        }
+    }
+
+    // Rules are strict: a user who has not declared the field fails the bound
+    private static class Threshold extends Check {
+
+        private final Function<User, Number> field;
+
+        private final double bound;
+
+        private final boolean atLeast;
+
+        Threshold(Function<User, Number> field, double bound, boolean atLeast) {
+            super(1, NUMERIC_PASS_RATE);
+            this.field = field;
+            this.bound = bound;
+            this.atLeast = atLeast;
+        }
+
+        @Override
+        boolean test(User user) {
+            Number value = field.apply(user);
+            if (value == null) {
+                return false;
+            }
+            double x = value.doubleValue();
+            return atLeast ? x >= bound : x <= bound;
+        }
+    }
+
+    private static class AnyOf extends Check {
+
+        private final Check[] rules;
+
+        // Passes unless every rule fails; the rules themselves run most permissive first
+        AnyOf(Check[] rules) {
+            super(Arrays.stream(rules).mapToDouble(rule -> rule.cost).sum(),
+                    1 - Arrays.stream(rules).mapToDouble(rule -> 1 - rule.passRate).reduce(1, (a, b) -> a * b));
+            Check[] ordered = rules.clone();
+            Arrays.sort(ordered, Comparator.comparingDouble((Check rule) -> rule.passRate / rule.cost).reversed());
+            this.rules = ordered;
+        }
+
+        @Override
+        boolean test(User user) {
+            for (Check rule : rules) {
+                if (rule.test(user)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.govscheme.portal.service;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+// A run of messages sent by one caller, either one send per message or over a pooled SMTP connection
+public interface MailSession extends AutoCloseable {
+    void send(MimeMessage message) throws MessagingException;
+    
+    @Override
+    void close();
+}
@@ -0,0 +1,159 @@
+package com.govscheme.portal.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// HTML mail template parsed once into literal segments and placeholder slots.
+// {{name}} is HTML-escaped on render, {{{name}}} is inserted as-is. Rendering appends the
+// segments into a per-thread buffer instead of re-parsing a format string per message.
+public class MailTemplate {
+
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8 * 1024));
+
+    // literals.length == slots.length + 1; output is literal[0] slot[0] literal[1] ... literal[n]
+    private final char[][] literals;
+
+    private final String[] slots;
+
+    private final boolean[] raw;
+
+    private final String[] parameters;
+
+    private final int[] slotParameters;
+
+    private final int literalLength;
+
+    private MailTemplate(List<String> literals, List<String> slots, List<Boolean> raw) {
+        this.literals = new char[literals.size()][];
+        int length = 0;
+        for (int i = 0; i < literals.size(); i++) {
+            this.literals[i] = literals.get(i).toCharArray();
+            length += this.literals[i].length;
+        }
+        this.literalLength = length;
+
+        this.slots = slots.toArray(new String[0]);
+        this.raw = new boolean[raw.size()];
+        for (int i = 0; i < raw.size(); i++) {
+            this.raw[i] = raw.get(i);
+        }
+
+        this.parameters = Arrays.stream(this.slots).distinct().toArray(String[]::new);
+        this.slotParameters = new int[this.slots.length];
+        for (int i = 0; i < this.slots.length; i++) {
+            this.slotParameters[i] = Arrays.asList(parameters).indexOf(this.slots[i]);
+        }
+    }
+
+    public static MailTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        List<Boolean> raw = new ArrayList<>();
+
+        int position = 0;
+        while (true) {
+            int open = source.indexOf("{{", position);
+            if (open < 0) {
+                literals.add(source.substring(position));
+                break;
+            }
+            boolean isRaw = source.startsWith("{{{", open);
+            String close = isRaw ? "}}}" : "}}";
+            int nameStart = open + (isRaw ? 3 : 2);
+            int end = source.indexOf(close, nameStart);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at offset " + open);
+            }
+            literals.add(source.substring(position, open));
+            slots.add(source.substring(nameStart, end).trim());
+            raw.add(isRaw);
+            position = end + close.length();
+        }
+
+        return new MailTemplate(literals, slots, raw);
+    }
+
+    // Placeholder names in first-appearance order; render() takes values in this order
+    public String[] parameters() {
+        return parameters.clone();
+    }
+
+    // Renders the given placeholders into the literal text, leaving the rest as slots
+    public MailTemplate bind(Map<String, String> values) {
+        List<String> boundLiterals = new ArrayList<>();
+        List<String> boundSlots = new ArrayList<>();
+        List<Boolean> boundRaw = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder().append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            if (values.containsKey(slots[i])) {
+                appendValue(literal, values.get(slots[i]), raw[i]);
+            } else {
+                boundLiterals.add(literal.toString());
+                boundSlots.add(slots[i]);
+                boundRaw.add(raw[i]);
+                literal.setLength(0);
+            }
+            literal.append(literals[i + 1]);
+        }
+        boundLiterals.add(literal.toString());
+
+        return new MailTemplate(boundLiterals, boundSlots, boundRaw);
+    }
+
+    public String render(String... values) {
+        if (values.length != parameters.length) {
+            throw new IllegalArgumentException("Expected " + parameters.length + " values, got " + values.length);
+        }
+
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        buffer.ensureCapacity(literalLength + 256);
+
+        buffer.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            appendValue(buffer, values[slotParameters[i]], raw[i]);
+            buffer.append(literals[i + 1]);
+        }
+
+        String html = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return html;
+    }
+
+    private static void appendValue(StringBuilder out, String value, boolean raw) {
+        if (value == null) {
+            out.append("null");
+        } else if (raw) {
+            out.append(value);
+        } else {
+            escapeHtml(out, value);
+        }
+    }
+
+    public static String escapeHtml(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 16);
+        escapeHtml(out, value);
+        return out.toString();
+    }
+
+    private static void escapeHtml(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
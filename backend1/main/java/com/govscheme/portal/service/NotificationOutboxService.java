@@ -0,0 +1,198 @@
+package com.govscheme.portal.service;
+
+import com.govscheme.portal.dto.NotificationProgress;
+import com.govscheme.portal.model.EmailOutbox;
+import com.govscheme.portal.model.NotificationJob;
+import com.govscheme.portal.model.Scheme;
+import com.govscheme.portal.model.User;
+import com.govscheme.portal.repository.EmailOutboxRepository;
+import com.govscheme.portal.repository.NotificationJobRepository;
+import com.govscheme.portal.repository.SchemeRepository;
+import com.govscheme.portal.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Service
+public class NotificationOutboxService {
+    
+    @Autowired
+    private NotificationJobRepository jobRepository;
+    
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private SchemeRepository schemeRepository;
+    
+    @Autowired
+    private AttributeDictionary attributeDictionary;
+    
+    @Value("${app.outbox.insert-batch-size:1000}")
+    private int insertBatchSize;
+    
+    public NotificationJob createNewSchemeJob(Scheme scheme) {
+        NotificationJob job = new NotificationJob();
+        job.setSchemeId(scheme.getId());
+        job.setSchemeName(scheme.getName());
+        return jobRepository.save(job);
+    }
+    
+    public List<NotificationJob> createNewSchemeJobs(List<Scheme> schemes) {
+        List<NotificationJob> jobs = new ArrayList<>(schemes.size());
+        for (Scheme scheme : schemes) {
+            NotificationJob job = new NotificationJob();
+            job.setSchemeId(scheme.getId());
+            job.setSchemeName(scheme.getName());
+            jobs.add(job);
+        }
+        return jobRepository.saveAll(jobs);
+    }
+    
+    // Writes one outbox message per recipient; the outbox workers pick them up as they land
+    @Async
+    public void enqueueRecipients(NotificationJob job, Scheme scheme) {
+        long total = 0;
+        List<EmailOutbox> batch = new ArrayList<>(insertBatchSize);
+        
+        try (Stream<User> recipients = userRepository.streamNotificationRecipients(scheme)) {
+            Iterator<User> iterator = recipients.iterator();
+            while (iterator.hasNext()) {
+                batch.add(newMessage(job, iterator.next()));
+                if (batch.size() >= insertBatchSize) {
+                    outboxRepository.insertIgnoringDuplicates(batch);
+                    total += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            outboxRepository.insertIgnoringDuplicates(batch);
+            total += batch.size();
+        }
+        
+        job.setTotalRecipients(total);
+        job.setStatus(NotificationJob.Status.ENQUEUED);
+        job.setEnqueuedAt(LocalDateTime.now());
+        jobRepository.save(job);
+    }
+    
+    // One pass over the users for a whole set of new schemes (bulk import): each user is tested
+    // against every scheme's compiled eligibility program, instead of one users scan per scheme.
+    // Each scheme keeps its own job, so progress and templates work as for a single scheme.
+    @Async
+    public void enqueueRecipients(List<NotificationJob> jobs, List<Scheme> schemes) {
+        if (jobs.isEmpty()) {
+            return;
+        }
+        List<EligibilityProgram> programs = schemes.stream()
+                .map(scheme -> EligibilityProgram.compile(scheme, attributeDictionary))
+                .toList();
+        long[] totals = new long[jobs.size()];
+        List<EmailOutbox> batch = new ArrayList<>(insertBatchSize);
+        
+        try (Stream<User> recipients = userRepository.streamNotificationCandidates()) {
+            Iterator<User> iterator = recipients.iterator();
+            while (iterator.hasNext()) {
+                User user = iterator.next();
+                for (int i = 0; i < jobs.size(); i++) {
+                    if (programs.get(i).test(user)) {
+                        batch.add(newMessage(jobs.get(i), user));
+                        totals[i]++;
+                    }
+                }
+                if (batch.size() >= insertBatchSize) {
+                    outboxRepository.insertIgnoringDuplicates(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            outboxRepository.insertIgnoringDuplicates(batch);
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < jobs.size(); i++) {
+            NotificationJob job = jobs.get(i);
+            job.setTotalRecipients(totals[i]);
+            job.setStatus(NotificationJob.Status.ENQUEUED);
+            job.setEnqueuedAt(now);
+        }
+        jobRepository.saveAll(jobs);
+    }
+    
+    // A crash during enqueueing leaves the job ENQUEUING; re-streaming is safe because the
+    // outbox only accepts one message per recipient per job
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        for (NotificationJob job : jobRepository.findByStatus(NotificationJob.Status.ENQUEUING)) {
+            schemeRepository.findById(job.getSchemeId())
+                    .ifPresent(scheme -> enqueueRecipients(job, scheme));
+        }
+    }
+    
+    public NotificationProgress getProgress(String jobId) {
+        NotificationJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Notification job not found"));
+        
+        Map<EmailOutbox.Status, Long> counts = outboxRepository.countByStatus(jobId);
+        long pending = counts.get(EmailOutbox.Status.PENDING);
+        long sending = counts.get(EmailOutbox.Status.SENDING);
+        long sent = counts.get(EmailOutbox.Status.SENT);
+        long failed = counts.get(EmailOutbox.Status.FAILED);
+        
+        String status;
+        if (job.getStatus() == NotificationJob.Status.ENQUEUING) {
+            status = "ENQUEUING";
+        } else if (pending + sending == 0) {
+            status = "COMPLETED";
+        } else {
+            status = "SENDING";
+        }
+        
+        LocalDateTime lastSentAt = outboxRepository.findLastSentAt(jobId).orElse(null);
+        double sendsPerSecond = 0;
+        if (lastSentAt != null) {
+            long millis = Duration.between(job.getCreatedAt(), lastSentAt).toMillis();
+            sendsPerSecond = millis > 0 ? sent * 1000.0 / millis : sent;
+        }
+        
+        return new NotificationProgress(
+                job.getId(),
+                job.getSchemeId(),
+                status,
+                job.getStatus() == NotificationJob.Status.ENQUEUED ? job.getTotalRecipients() : pending + sending + sent + failed,
+                pending,
+                sending,
+                sent,
+                failed,
+                sendsPerSecond,
+                job.getCreatedAt(),
+                lastSentAt
+        );
+    }
+    
+    private EmailOutbox newMessage(NotificationJob job, User user) {
+        EmailOutbox message = new EmailOutbox();
+        message.setJobId(job.getId());
+        message.setSchemeId(job.getSchemeId());
+        message.setToEmail(user.getEmail());
+        message.setUserName(user.getFirstName());
+        return message;
+    }
+}
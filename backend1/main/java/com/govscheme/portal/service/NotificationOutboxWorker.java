@@ -0,0 +1,185 @@
+package com.govscheme.portal.service;
+
+import com.govscheme.portal.model.EmailOutbox;
+import com.govscheme.portal.model.Scheme;
+import com.govscheme.portal.repository.EmailOutboxRepository;
+import com.govscheme.portal.repository.SchemeRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Fixed pool of workers that claim outbox messages under a lease and send them at a
+// configurable rate shared by every worker on every instance. Each message is marked sent as
+// soon as the relay takes it, and the lease is renewed while the batch is worked through, so
+// only a worker that dies mid-batch leaves messages to be claimed and sent again.
+// Delivery is at-least-once.
+@Component
+public class NotificationOutboxWorker {
+    
+    private static final Logger log = LoggerFactory.getLogger(NotificationOutboxWorker.class);
+    
+    private static final int MAX_PREPARED_JOBS = 256;
+    
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+    
+    @Autowired
+    private SchemeRepository schemeRepository;
+    
+    @Autowired
+    private EmailService emailService;
+    
+    @Autowired
+    private BackgroundFailures backgroundFailures;
+    
+    @Value("${app.outbox.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.outbox.workers:4}")
+    private int workers;
+    
+    @Value("${app.outbox.batch-size:50}")
+    private int batchSize;
+    
+    // For all instances together
+    @Value("${app.outbox.rate-per-second:20}")
+    private double ratePerSecond;
+    
+    @Value("${app.outbox.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${app.outbox.lease-seconds:120}")
+    private long leaseSeconds;
+    
+    @Value("${app.outbox.backoff-seconds:30}")
+    private long backoffSeconds;
+    
+    @Value("${app.outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+    
+    private final String workerId = UUID.randomUUID().toString();
+    
+    // Notification body rendered once per fan-out job, shared by all workers
+    private final Map<String, MailTemplate> preparedByJob = new ConcurrentHashMap<>();
+    
+    private ExecutorService pool;
+    
+    private volatile boolean running = false;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        pool = Executors.newFixedThreadPool(workers);
+        for (int i = 0; i < workers; i++) {
+            pool.execute(this::runWorker);
+        }
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (pool != null) {
+            pool.shutdownNow();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+    
+    private void runWorker() {
+        while (running) {
+            try {
+                String owner = workerId + ":" + UUID.randomUUID();
+                List<EmailOutbox> batch = outboxRepository.claimBatch(owner, batchSize, Duration.ofSeconds(leaseSeconds));
+                if (batch.isEmpty()) {
+                    Thread.sleep(pollIntervalMs);
+                } else {
+                    process(owner, batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Outbox worker failed to process batch", e);
+                backgroundFailures.record("notification-outbox", e);
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    private void process(String owner, List<EmailOutbox> batch) throws InterruptedException, MessagingException {
+        Duration backoff = Duration.ofSeconds(backoffSeconds);
+        Duration lease = Duration.ofSeconds(leaseSeconds);
+        Map<String, Scheme> schemes = new HashMap<>();
+        // Renew at half-life, so a slow relay or a busy send timeline cannot run the lease out
+        long renewAt = System.nanoTime() + lease.toNanos() / 2;
+        
+        try (MailSession session = emailService.openSession(batch.size())) {
+            for (EmailOutbox message : batch) {
+                Scheme scheme = schemes.computeIfAbsent(message.getSchemeId(),
+                        id -> schemeRepository.findById(id).orElse(null));
+                if (scheme == null) {
+                    // Nothing to retry once the scheme is gone
+                    outboxRepository.markFailed(message, "Scheme not found", 0, backoff);
+                    continue;
+                }
+                
+                if (preparedByJob.size() > MAX_PREPARED_JOBS) {
+                    preparedByJob.clear();
+                }
+                MailTemplate prepared = preparedByJob.computeIfAbsent(message.getJobId(),
+                        jobId -> emailService.prepareNewSchemeNotification(scheme));
+                
+                acquirePermit();
+                if (System.nanoTime() >= renewAt) {
+                    if (!outboxRepository.renewLease(owner, lease)) {
+                        // Lapsed and reclaimed by another worker, which will send the rest
+                        return;
+                    }
+                    renewAt = System.nanoTime() + lease.toNanos() / 2;
+                }
+                try {
+                    session.send(emailService.createNewSchemeNotification(
+                            message.getToEmail(), message.getUserName(), scheme, prepared));
+                } catch (Exception e) {
+                    outboxRepository.markFailed(message, e.getMessage(), maxAttempts, backoff);
+                    continue;
+                }
+                outboxRepository.markSent(List.of(message));
+            }
+        }
+    }
+    
+    // Each send reserves the next slot on a timeline spaced 1/rate apart, kept in Mongo so the
+    // rate holds however many instances run workers, and sleeps until it comes round
+    private void acquirePermit() throws InterruptedException {
+        long interval = (long) (TimeUnit.SECONDS.toMicros(1) / ratePerSecond);
+        long slot = outboxRepository.reserveSendSlot(interval);
+        long wait = slot - TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        if (wait > 0) {
+            TimeUnit.MICROSECONDS.sleep(wait);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.govscheme.portal.service;
+
+import com.govscheme.portal.model.EmailOtp;
+import com.govscheme.portal.repository.EmailOtpRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+
+// Email verification codes, kept in email_otps (TTL-indexed) so issuing and checking a code
+// never touches the users collection. Mongo holds the attempt count: every check first reserves
+// an attempt with one atomic update, so the limit holds however many guesses arrive at once and
+// on however many instances, and consuming a code is a conditional delete, so it is used once.
+@Component
+public class OtpStore {
+
+    @Autowired
+    private EmailOtpRepository emailOtpRepository;
+
+    @Value("${app.otp.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    @Value("${app.otp.max-attempts:5}")
+    private int maxAttempts;
+
+    private final SecureRandom random = new SecureRandom();
+
+    // Replaces any code already issued for this email
+    public String issue(String email) {
+        String otp = String.valueOf(100000 + random.nextInt(900000));
+        emailOtpRepository.save(new EmailOtp(email, otp, 0, LocalDateTime.now().plusMinutes(ttlMinutes)));
+        return otp;
+    }
+
+    // Throws with the reason if the code is not accepted; an accepted code is gone afterwards
+    public void verify(String email, String otp) {
+        EmailOtp reserved = emailOtpRepository.reserveAttempt(email, maxAttempts);
+        if (reserved == null) {
+            throw new RuntimeException(rejectionReason(email));
+        }
+        if (!matches(reserved.getOtp(), otp)) {
+            throw new RuntimeException("Invalid OTP");
+        }
+        if (!emailOtpRepository.consume(email, otp)) {
+            // Used or replaced in the meantime
+            throw new RuntimeException("Invalid OTP");
+        }
+    }
+
+    private String rejectionReason(String email) {
+        EmailOtp current = emailOtpRepository.findById(email).orElse(null);
+        if (current == null) {
+            return "Invalid OTP";
+        }
+        if (!current.getExpiresAt().isAfter(LocalDateTime.now())) {
+            // The TTL monitor has not removed it yet
+            return "OTP has expired";
+        }
+        return "Too many incorrect attempts. Please request a new OTP";
+    }
+
+    private static boolean matches(String expected, String candidate) {
+        return expected != null && candidate != null && MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), candidate.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,204 @@
+package com.govscheme.portal.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// BCrypt for interactive logins and registrations on a small dedicated pool, so a login flood
+// can only ever occupy that many cores and the rest stay free for catalog traffic. The queue
+// in front of it is bounded; once it is full, callers are shed immediately with a Retry-After
+// estimate instead of piling up on request threads. Bulk imports hash on the same pool, so they
+// are held to the same share of cores.
+@Component
+public class PasswordHasher {
+
+    private static final long BULK_BACKOFF_MS = 50;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    // 0 means half the cores
+    @Value("${app.auth.hash.max-concurrency:0}")
+    private int maxConcurrency;
+
+    @Value("${app.auth.hash.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${app.auth.hash.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor pool;
+
+    // Across all bulk callers, at most one queued or running bulk hash per thread, so
+    // interactive requests wait behind a few bulk hashes rather than a whole import
+    private Semaphore bulkPermits;
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private final LongAdder shed = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        if (maxConcurrency <= 0) {
+            maxConcurrency = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        pool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        bulkPermits = new Semaphore(maxConcurrency);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    // Never shed: while interactive requests fill the queue, the bulk caller waits instead
+    public List<String> encodeAll(List<String> rawPasswords) throws InterruptedException {
+        List<Future<String>> results = new ArrayList<>(rawPasswords.size());
+        for (String rawPassword : rawPasswords) {
+            bulkPermits.acquire();
+            results.add(submitBulk(() -> {
+                try {
+                    return passwordEncoder.encode(rawPassword);
+                } finally {
+                    bulkPermits.release();
+                }
+            }));
+        }
+        List<String> encoded = new ArrayList<>(results.size());
+        for (Future<String> result : results) {
+            try {
+                encoded.add(result.get());
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Failed to hash password: " + e.getCause().getMessage());
+            }
+        }
+        return encoded;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getActive() {
+        return pool.getActiveCount();
+    }
+
+    public int getQueued() {
+        return pool.getQueue().size();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public double getAverageMillis() {
+        long count = completed.sum();
+        return count > 0 ? totalNanos.sum() / 1e6 / count : 0.0;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    public long getShed() {
+        return shed.sum();
+    }
+
+    private <T> T run(Callable<T> work) {
+        Future<T> result;
+        try {
+            result = pool.submit(() -> timed(work));
+        } catch (RejectedExecutionException e) {
+            shed.increment();
+            throw new AdmissionRejectedException(AdmissionRejectedException.Reason.OVERLOADED, retryAfterSeconds(),
+                    "Too many sign-in attempts right now. Please try again shortly.");
+        }
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            shed.increment();
+            throw new AdmissionRejectedException(AdmissionRejectedException.Reason.OVERLOADED, retryAfterSeconds(),
+                    "Too many sign-in attempts right now. Please try again shortly.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while checking password");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to check password: " + e.getCause().getMessage());
+        }
+    }
+
+    private <T> Future<T> submitBulk(Callable<T> work) throws InterruptedException {
+        while (true) {
+            try {
+                return pool.submit(() -> timed(work));
+            } catch (RejectedExecutionException e) {
+                if (pool.isShutdown()) {
+                    throw e;
+                }
+                Thread.sleep(BULK_BACKOFF_MS);
+            }
+        }
+    }
+
+    private <T> T timed(Callable<T> work) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return work.call();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            completed.increment();
+            totalNanos.add(elapsed);
+            maxNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    // Time for the work already admitted to drain, at the observed hash latency
+    private long retryAfterSeconds() {
+        double backlog = pool.getQueue().size() + pool.getActiveCount();
+        double seconds = backlog * Math.max(getAverageMillis(), 100) / maxConcurrency / 1000;
+        return Math.max(1, (long) Math.ceil(seconds));
+    }
+}
@@ -0,0 +1,340 @@
+package com.govscheme.portal.service;
+
+import com.govscheme.portal.dto.SchemeSearchResult;
+import com.govscheme.portal.event.SchemeChangedEvent;
+import com.govscheme.portal.model.Scheme;
+import com.govscheme.portal.repository.SchemeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// In-process inverted index over the active scheme catalog with BM25F ranking: term
+// frequencies are length-normalised per field and weighted by the field's boost.
+@Component
+public class SchemeSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemeSearchIndex.class);
+
+    private static final long CATCH_UP_RETRY_MS = 1000;
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    // Query terms also match longer indexed terms they prefix ("agri" -> "agriculture"), at a discount
+    private static final double PREFIX_WEIGHT = 0.5;
+
+    private static final int MAX_PREFIX_EXPANSIONS = 20;
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private enum Field {
+        NAME(3.0, Scheme::getName),
+        CATEGORY(2.0, Scheme::getCategory),
+        SHORT_DESCRIPTION(1.5, Scheme::getShortDescription),
+        DEPARTMENT(1.0, Scheme::getDepartment),
+        MINISTRY(1.0, Scheme::getMinistry),
+        DESCRIPTION(1.0, Scheme::getDescription),
+        BENEFITS(0.5, scheme -> scheme.getBenefits() != null ? String.join(" ", scheme.getBenefits()) : null);
+
+        private final double boost;
+
+        private final Function<Scheme, String> extractor;
+
+        Field(double boost, Function<Scheme, String> extractor) {
+            this.boost = boost;
+            this.extractor = extractor;
+        }
+    }
+
+    private static final Field[] FIELDS = Field.values();
+
+    @Autowired
+    private SchemeRepository schemeRepository;
+
+    @Autowired
+    private CatalogVersionPublisher catalogVersionPublisher;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Held by the one reader applying changes published elsewhere; the others keep searching meanwhile
+    private final ReentrantLock catchUpLock = new ReentrantLock();
+
+    private volatile long catchUpRetryAt = 0;
+
+    private final List<Scheme> docs = new ArrayList<>();
+
+    private final List<int[]> fieldLengths = new ArrayList<>();
+
+    private final List<Set<String>> docTerms = new ArrayList<>();
+
+    private final Map<String, Integer> docsById = new HashMap<>();
+
+    private final Deque<Integer> freeDocs = new ArrayDeque<>();
+
+    // term -> doc -> term frequency per field
+    private final TreeMap<String, Map<Integer, int[]>> postings = new TreeMap<>();
+
+    private final long[] totalFieldLengths = new long[FIELDS.length];
+
+    private int docCount = 0;
+
+    private volatile boolean loaded = false;
+
+    // Published catalog version every change up to which has been indexed
+    private volatile long catalogVersion = 0;
+
+    // Catalog version of each scheme last indexed, deleted ones included, so a catch-up read
+    // before a local change cannot undo it
+    private final Map<String, Long> appliedVersions = new HashMap<>();
+
+    public SchemeSearchResult search(String query, int page, int size) {
+        ensureLoaded();
+        page = Math.max(page, 0);
+        size = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> scores = score(query);
+
+            List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Integer, Double>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(entry -> String.valueOf(docs.get(entry.getKey()).getName())));
+
+            List<Scheme> results = new ArrayList<>(size);
+            for (int i = page * size; i < ranked.size() && results.size() < size; i++) {
+                results.add(docs.get(ranked.get(i).getKey()));
+            }
+            return new SchemeSearchResult(query, page, size, ranked.size(), results);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids of every scheme matching the query, unranked
+    public Set<String> matchingIds(String query) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Set<String> ids = new HashSet<>();
+            for (Integer doc : score(query).keySet()) {
+                ids.add(docs.get(doc).getId());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onSchemeChanged(SchemeChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            // catalogVersion stays put; only catchUp() can vouch for earlier versions
+            apply(event.getScheme());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            // Version first: every scheme read afterwards is at least that new
+            long version = schemeRepository.currentCatalogVersion();
+            List<Scheme> activeSchemes = schemeRepository.findByIsActiveTrue();
+            docs.clear();
+            fieldLengths.clear();
+            docTerms.clear();
+            docsById.clear();
+            freeDocs.clear();
+            postings.clear();
+            Arrays.fill(totalFieldLengths, 0);
+            docCount = 0;
+            appliedVersions.clear();
+            activeSchemes.forEach(this::apply);
+            catalogVersion = version;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // rebuild() re-enters the write lock; no monitor is held across the catalog read
+    private void ensureLoaded() {
+        if (!loaded) {
+            lock.writeLock().lock();
+            try {
+                if (!loaded) {
+                    rebuild();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        catchUp();
+    }
+
+    // Schemes changed through other instances arrive only through the published catalog version;
+    // see EligibilityIndex.catchUp()
+    private void catchUp() {
+        if (System.currentTimeMillis() < catchUpRetryAt
+                || catalogVersionPublisher.published() <= catalogVersion || !catchUpLock.tryLock()) {
+            return;
+        }
+        long from = catalogVersion;
+        try {
+            long to = catalogVersionPublisher.published();
+            if (to <= from) {
+                return;
+            }
+            List<Scheme> changed = schemeRepository.findChangedBetween(from, to);
+            lock.writeLock().lock();
+            try {
+                if (catalogVersion == from) {
+                    changed.forEach(this::apply);
+                    catalogVersion = to;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (RuntimeException e) {
+            catchUpRetryAt = System.currentTimeMillis() + CATCH_UP_RETRY_MS;
+            log.error("Failed to index catalog changes after version {}; searching the index as it is", from, e);
+        } finally {
+            catchUpLock.unlock();
+        }
+    }
+
+    private void apply(Scheme scheme) {
+        Long version = scheme.getCatalogVersion();
+        Long applied = appliedVersions.get(scheme.getId());
+        if (version != null && applied != null && applied > version) {
+            return;
+        }
+        if (version != null) {
+            appliedVersions.put(scheme.getId(), version);
+        }
+        removeDoc(scheme.getId());
+        if (Boolean.TRUE.equals(scheme.getIsActive())) {
+            addDoc(scheme);
+        }
+    }
+
+    private Map<Integer, Double> score(String query) {
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String term : new LinkedHashSet<>(TextAnalyzer.tokenize(query))) {
+            Map<Integer, int[]> exact = postings.get(term);
+            if (exact != null) {
+                accumulate(scores, exact, 1.0);
+            }
+            int expansions = 0;
+            for (Map<Integer, int[]> prefixed : postings.subMap(term, false, term + Character.MAX_VALUE, false).values()) {
+                if (expansions++ >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                accumulate(scores, prefixed, PREFIX_WEIGHT);
+            }
+        }
+        return scores;
+    }
+
+    private void accumulate(Map<Integer, Double> scores, Map<Integer, int[]> postingList, double weight) {
+        double df = postingList.size();
+        double idf = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+
+        for (Map.Entry<Integer, int[]> posting : postingList.entrySet()) {
+            int doc = posting.getKey();
+            int[] frequencies = posting.getValue();
+            int[] lengths = fieldLengths.get(doc);
+
+            double tf = 0;
+            for (Field field : FIELDS) {
+                int frequency = frequencies[field.ordinal()];
+                if (frequency > 0) {
+                    double averageLength = Math.max(1.0, (double) totalFieldLengths[field.ordinal()] / docCount);
+                    double norm = 1 - B + B * lengths[field.ordinal()] / averageLength;
+                    tf += field.boost * frequency / norm;
+                }
+            }
+            scores.merge(doc, weight * idf * tf * (K1 + 1) / (tf + K1), Double::sum);
+        }
+    }
+
+    private void addDoc(Scheme scheme) {
+        int doc;
+        int[] lengths = new int[FIELDS.length];
+        Set<String> terms = new HashSet<>();
+        if (freeDocs.isEmpty()) {
+            doc = docs.size();
+            docs.add(scheme);
+            fieldLengths.add(lengths);
+            docTerms.add(terms);
+        } else {
+            doc = freeDocs.pop();
+            docs.set(doc, scheme);
+            fieldLengths.set(doc, lengths);
+            docTerms.set(doc, terms);
+        }
+        docsById.put(scheme.getId(), doc);
+        docCount++;
+
+        for (Field field : FIELDS) {
+            List<String> tokens = TextAnalyzer.tokenize(field.extractor.apply(scheme));
+            lengths[field.ordinal()] = tokens.size();
+            totalFieldLengths[field.ordinal()] += tokens.size();
+            for (String token : tokens) {
+                postings.computeIfAbsent(token, t -> new HashMap<>())
+                        .computeIfAbsent(doc, d -> new int[FIELDS.length])[field.ordinal()]++;
+                terms.add(token);
+            }
+        }
+    }
+
+    private void removeDoc(String schemeId) {
+        Integer doc = docsById.remove(schemeId);
+        if (doc == null) {
+            return;
+        }
+
+        for (String term : docTerms.get(doc)) {
+            Map<Integer, int[]> postingList = postings.get(term);
+            postingList.remove(doc);
+            if (postingList.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        int[] lengths = fieldLengths.get(doc);
+        for (Field field : FIELDS) {
+            totalFieldLengths[field.ordinal()] -= lengths[field.ordinal()];
+        }
+
+        docs.set(doc, null);
+        docTerms.set(doc, null);
+        fieldLengths.set(doc, null);
+        freeDocs.push(doc);
+        docCount--;
+    }
+}
@@ -1,15 +1,29 @@
 package com.govscheme.portal.service;
 
+import com.govscheme.portal.dto.CatalogChanges;
+import com.govscheme.portal.dto.EligibilityConsistencyReport;
+import com.govscheme.portal.dto.NotificationProgress;
+import com.govscheme.portal.dto.SchemeFilter;
+import com.govscheme.portal.dto.SchemeFilterResult;
+import com.govscheme.portal.dto.SchemeImportReport;
+import com.govscheme.portal.dto.SchemePage;
+import com.govscheme.portal.dto.SchemeSearchResult;
+import com.govscheme.portal.dto.Suggestion;
+import com.govscheme.portal.event.SchemeChangedEvent;
+import com.govscheme.portal.model.NotificationJob;
 import com.govscheme.portal.model.Scheme;
-import com.govscheme.portal.model.User;
 import com.govscheme.portal.repository.SchemeRepository;
-import com.govscheme.portal.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 public class SchemeService {
@@ -18,141 +32,195 @@ public class SchemeService {
     private SchemeRepository schemeRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CatalogVersionPublisher catalogVersionPublisher;
     
     @Autowired
-    private EmailService emailService;
+    private NotificationOutboxService notificationOutboxService;
+    
+    @Autowired
+    private EligibilityIndex eligibilityIndex;
+    
+    @Autowired
+    private EligibilityCache eligibilityCache;
+    
+    @Autowired
+    private UserEligibilityView userEligibilityView;
+    
+    @Autowired
+    private SchemeSearchIndex schemeSearchIndex;
+    
+    @Autowired
+    private SchemeSuggester schemeSuggester;
+    
+    @Autowired
+    private CatalogSnapshots catalogSnapshots;
+    
+    @Autowired
+    private EligibilityBatchEvaluator eligibilityBatchEvaluator;
+    
+    @Autowired
+    private SchemeTransfer schemeTransfer;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private AttributeDictionary attributeDictionary;
     
     public List<Scheme> getAllActiveSchemes() {
         return schemeRepository.findByIsActiveTrue();
     }
     
-    public Scheme getSchemeById(String id) {
-        return schemeRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Scheme not found"));
+    public SchemePage listSchemes(String category, String sort, String direction, String cursor, int size) {
+        return schemeRepository.findActiveSummaries(category, sort, direction, cursor, size);
     }
     
-    public List<Scheme> getEligibleSchemes(String userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        List<Scheme> allSchemes = schemeRepository.findByIsActiveTrue();
-        
-        return allSchemes.stream()
-                .filter(scheme -> isUserEligible(user, scheme))
-                .collect(Collectors.toList());
+    // Bumped on every create, update and soft delete; public listings use it as their ETag
+    public long getCatalogVersion() {
+        return catalogVersionPublisher.published();
     }
     
-    private boolean isUserEligible(User user, Scheme scheme) {
-        // Check age eligibility
-        if (scheme.getMinAge() != null && user.getAge() < scheme.getMinAge()) {
-            return false;
-        }
-        if (scheme.getMaxAge() != null && user.getAge() > scheme.getMaxAge()) {
-            return false;
-        }
-        
-        // Check state eligibility
-        if (scheme.getEligibleStates() != null && !scheme.getEligibleStates().isEmpty()) {
-            if (!scheme.getEligibleStates().contains(user.getState()) && 
-                !scheme.getEligibleStates().contains("All")) {
-                return false;
-            }
-        }
-        
-        // Check gender eligibility
-        if (scheme.getEligibleGenders() != null && !scheme.getEligibleGenders().isEmpty()) {
-            if (!scheme.getEligibleGenders().contains(user.getGender()) && 
-                !scheme.getEligibleGenders().contains("All")) {
-                return false;
-            }
-        }
-        
-        // Check income eligibility
-        if (scheme.getMaxIncome() != null && user.getAnnualIncome() != null) {
-            if (user.getAnnualIncome() > scheme.getMaxIncome()) {
-                return false;
-            }
-        }
-        
-        // Check category eligibility
-        if (scheme.getEligibleCategories() != null && !scheme.getEligibleCategories().isEmpty()) {
-            if (!scheme.getEligibleCategories().contains(user.getCategory()) && 
-                !scheme.getEligibleCategories().contains("All")) {
-                return false;
-            }
+    public String getCatalogETag() {
+        return "\"catalog-" + getCatalogVersion() + "\"";
+    }
+    
+    // Schemes changed after `since`. Version 0 (a client with nothing cached) gets the whole active catalog.
+    public CatalogChanges getChangesSince(long since) {
+        long version = schemeRepository.currentCatalogVersion();
+        if (since <= 0) {
+            return new CatalogChanges(since, version, schemeRepository.findByIsActiveTrue(), List.of());
         }
         
-        // Check occupation eligibility
-        if (scheme.getEligibleOccupations() != null && !scheme.getEligibleOccupations().isEmpty()) {
-            if (!scheme.getEligibleOccupations().contains(user.getOccupation()) && 
-                !scheme.getEligibleOccupations().contains("All")) {
-                return false;
+        List<Scheme> upserted = new ArrayList<>();
+        List<String> deactivated = new ArrayList<>();
+        for (Scheme scheme : schemeRepository.findChangedBetween(since, version)) {
+            if (Boolean.TRUE.equals(scheme.getIsActive())) {
+                upserted.add(scheme);
+            } else {
+                deactivated.add(scheme.getId());
             }
         }
-        
-        return true;
+        return new CatalogChanges(since, version, upserted, deactivated);
+    }
+    
+    // Pre-serialized forms of getAllActiveSchemes/getSchemesByCategory; null until built for the current version or later
+    public CatalogSnapshots.Payload getActiveSchemesSnapshot() {
+        return catalogSnapshots.activeSchemes(getCatalogVersion());
+    }
+    
+    public CatalogSnapshots.Payload getCategorySnapshot(String category) {
+        return catalogSnapshots.category(category, getCatalogVersion());
+    }
+    
+    public Scheme getSchemeById(String id) {
+        return schemeRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Scheme not found"));
+    }
+    
+    public List<Scheme> getEligibleSchemes(String userId) {
+        return userEligibilityView.eligibleSchemes(userId);
+    }
+    
+    // Pin the catalog for a batch: evaluate with the snapshot, report its catalogVersion()
+    public EligibilityIndex getEligibilitySnapshot() {
+        return eligibilityIndex.snapshot();
+    }
+    
+    public long evaluateEligibilityBatch(EligibilityIndex snapshot, InputStream profiles, OutputStream results) throws IOException {
+        return eligibilityBatchEvaluator.evaluate(snapshot, profiles, results);
+    }
+    
+    public EligibilityConsistencyReport verifyEligibilityViews(boolean repair) {
+        return userEligibilityView.verify(repair);
     }
     
     public Scheme createScheme(Scheme scheme) {
+        // Rejects malformed rule groups before they reach the index or the views
+        EligibilityProgram rules = EligibilityProgram.compileRuleGroups(scheme, attributeDictionary);
         scheme.setCreatedAt(LocalDateTime.now());
         scheme.setUpdatedAt(LocalDateTime.now());
-        Scheme savedScheme = schemeRepository.save(scheme);
-        
-        // Notify all eligible users about new scheme
-        notifyEligibleUsers(savedScheme);
+        Scheme savedScheme = saveVersioned(scheme);
+        eventPublisher.publishEvent(new SchemeChangedEvent(savedScheme, rules));
         
         return savedScheme;
     }
     
     public Scheme updateScheme(String id, Scheme scheme) {
         Scheme existingScheme = getSchemeById(id);
+        EligibilityProgram rules = EligibilityProgram.compileRuleGroups(scheme, attributeDictionary);
         
         scheme.setId(existingScheme.getId());
         scheme.setCreatedAt(existingScheme.getCreatedAt());
         scheme.setUpdatedAt(LocalDateTime.now());
         
-        return schemeRepository.save(scheme);
+        Scheme updatedScheme = saveVersioned(scheme);
+        eventPublisher.publishEvent(new SchemeChangedEvent(updatedScheme, rules));
+        
+        return updatedScheme;
     }
     
     public void deleteScheme(String id) {
         Scheme scheme = getSchemeById(id);
         scheme.setIsActive(false);
         scheme.setUpdatedAt(LocalDateTime.now());
-        schemeRepository.save(scheme);
+        Scheme deletedScheme = saveVersioned(scheme);
+        // Inactive, so it leaves the index and needs no program
+        eventPublisher.publishEvent(new SchemeChangedEvent(deletedScheme, null));
     }
     
-    private void notifyEligibleUsers(Scheme scheme) {
-        List<User> allUsers = userRepository.findAll();
-        
-        allUsers.stream()
-                .filter(user -> user.getIsEmailVerified() && user.getIsActive())
-                .filter(user -> isUserEligible(user, scheme))
-                .forEach(user -> {
-                    try {
-                        emailService.sendNewSchemeNotification(
-                                user.getEmail(),
-                                user.getFirstName(),
-                                scheme
-                        );
-                    } catch (Exception e) {
-                        // Log error but continue with other users
-                        System.err.println("Failed to send email to: " + user.getEmail());
-                    }
-                });
+    // The new version only becomes visible to readers once the write has landed
+    private Scheme saveVersioned(Scheme scheme) {
+        long version = schemeRepository.nextCatalogVersion();
+        try {
+            scheme.setCatalogVersion(version);
+            return schemeRepository.save(scheme);
+        } finally {
+            catalogVersionPublisher.written(version);
+        }
+    }
+    
+    public SchemeImportReport importSchemes(InputStream records, String format, boolean notify) throws IOException {
+        return schemeTransfer.importSchemes(records, format, notify);
+    }
+    
+    public void exportSchemes(OutputStream out, String format) throws IOException {
+        schemeTransfer.exportSchemes(out, format);
+    }
+    
+    // Queues a new-scheme email for every eligible user and returns immediately; the outbox
+    // workers deliver them in the background
+    public NotificationJob notifyEligibleUsers(Scheme scheme) {
+        NotificationJob job = notificationOutboxService.createNewSchemeJob(scheme);
+        notificationOutboxService.enqueueRecipients(job, scheme);
+        return job;
+    }
+    
+    public NotificationProgress getNotificationProgress(String jobId) {
+        return notificationOutboxService.getProgress(jobId);
     }
     
     public List<Scheme> getSchemesByCategory(String category) {
         return schemeRepository.findByCategory(category);
     }
     
-    public List<Scheme> searchSchemes(String query) {
-        return schemeRepository.findByIsActiveTrue().stream()
-                .filter(scheme -> 
-                    scheme.getName().toLowerCase().contains(query.toLowerCase()) ||
-                    scheme.getDescription().toLowerCase().contains(query.toLowerCase()) ||
-                    scheme.getCategory().toLowerCase().contains(query.toLowerCase())
-                )
-                .collect(Collectors.toList());
+    public SchemeSearchResult searchSchemes(String query, int page, int size) {
+        return schemeSearchIndex.search(query, page, size);
+    }
+    
+    public SchemeFilterResult filterSchemes(SchemeFilter filter) {
+        if (filter.getQuery() != null && !filter.getQuery().isBlank()) {
+            Set<String> searchHits = schemeSearchIndex.matchingIds(filter.getQuery());
+            return eligibilityIndex.filter(filter, searchHits);
+        }
+        return eligibilityCache.filter(filter);
+    }
+    
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return schemeSuggester.suggest(prefix, limit);
+    }
+    
+    // Views feed the popularity weights of the suggestions
+    public void recordSchemeView(String id) {
+        schemeSuggester.recordView(id);
     }
 }
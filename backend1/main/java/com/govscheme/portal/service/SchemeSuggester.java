@@ -0,0 +1,378 @@
+package com.govscheme.portal.service;
+
+import com.govscheme.portal.dto.Suggestion;
+import com.govscheme.portal.event.SchemeChangedEvent;
+import com.govscheme.portal.model.Scheme;
+import com.govscheme.portal.repository.SchemeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Typeahead over scheme names, departments and ministries. The active catalog is compiled into
+// an immutable radix trie whose nodes carry their precomputed top-N completions, so a lookup is
+// one walk down the prefix and never visits the subtree below it. Scheme changes, here or on
+// another instance, trigger a rebuild on a background thread and the new trie replaces the old
+// one in a single write.
+@Component
+public class SchemeSuggester {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemeSuggester.class);
+
+    private static final String SCHEME = "scheme";
+
+    private static final String DEPARTMENT = "department";
+
+    private static final String MINISTRY = "ministry";
+
+    @Autowired
+    private SchemeRepository schemeRepository;
+
+    @Autowired
+    private CatalogVersionPublisher catalogVersionPublisher;
+
+    @Autowired
+    private BackgroundFailures backgroundFailures;
+
+    @Value("${app.suggest.max-results:10}")
+    private int maxResults;
+
+    // Rebuild periodically too, so view counts feed into the ranking without a catalog change
+    @Value("${app.suggest.refresh-minutes:15}")
+    private long refreshMinutes;
+
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "scheme-suggester");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+    // Not a monitor: rebuilds read from Mongo, and a virtual thread blocked inside synchronized
+    // keeps its carrier thread
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private final Map<String, LongAdder> views = new ConcurrentHashMap<>();
+
+    private volatile Trie trie;
+
+    // Published catalog version the current trie was built at
+    private volatile long builtVersion = 0;
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        Trie current = trie;
+        if (current == null) {
+            current = ensureBuilt();
+        } else if (catalogVersionPublisher.published() > builtVersion) {
+            // Changed through another instance; serve this trie until the new one is ready
+            scheduleRebuild();
+        }
+        if (current == null || prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        return current.lookup(TextAnalyzer.normalize(prefix.strip()), Math.min(Math.max(limit, 1), maxResults));
+    }
+
+    public void recordView(String schemeId) {
+        views.computeIfAbsent(schemeId, id -> new LongAdder()).increment();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuilder.scheduleWithFixedDelay(this::rebuild, 0, refreshMinutes, TimeUnit.MINUTES);
+    }
+
+    @EventListener
+    public void onSchemeChanged(SchemeChangedEvent event) {
+        scheduleRebuild();
+    }
+
+    // Coalesce bursts of changes (bulk edits) into one rebuild
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuilder.execute(this::rebuild);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuilder.shutdownNow();
+    }
+
+    private Trie ensureBuilt() {
+        rebuildLock.lock();
+        try {
+            if (trie == null) {
+                rebuild();
+            }
+            return trie;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuildPending.set(false);
+            // Version first: every scheme read afterwards is at least that new
+            long version = schemeRepository.currentCatalogVersion();
+            trie = Trie.build(collectEntries(schemeRepository.findByIsActiveTrue()), maxResults);
+            builtVersion = version;
+        } catch (Exception e) {
+            // Keep serving the previous trie
+            log.error("Failed to rebuild scheme suggestions", e);
+            backgroundFailures.record("scheme-suggestions", e);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // One entry per scheme name and per distinct department/ministry. Schemes weigh in by views;
+    // departments and ministries by how many active schemes they run plus those schemes' views.
+    private List<Entry> collectEntries(List<Scheme> schemes) {
+        List<Entry> entries = new ArrayList<>();
+        Map<String, Entry> departments = new LinkedHashMap<>();
+        Map<String, Entry> ministries = new LinkedHashMap<>();
+
+        for (Scheme scheme : schemes) {
+            LongAdder viewCount = views.get(scheme.getId());
+            long schemeViews = viewCount != null ? viewCount.sum() : 0;
+            if (scheme.getName() != null && !scheme.getName().isBlank()) {
+                entries.add(new Entry(scheme.getName().strip(), SCHEME, scheme.getId(), 10 + schemeViews));
+            }
+            addGroup(departments, scheme.getDepartment(), DEPARTMENT, schemeViews);
+            addGroup(ministries, scheme.getMinistry(), MINISTRY, schemeViews);
+        }
+        entries.addAll(departments.values());
+        entries.addAll(ministries.values());
+        return entries;
+    }
+
+    private static void addGroup(Map<String, Entry> groups, String text, String type, long schemeViews) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        Entry group = groups.computeIfAbsent(TextAnalyzer.normalize(text.strip()),
+                key -> new Entry(text.strip(), type, null, 0));
+        group.weight += 5 + schemeViews;
+    }
+
+    private static class Entry {
+
+        private final String text;
+
+        private final String type;
+
+        private final String schemeId;
+
+        private long weight;
+
+        Entry(String text, String type, String schemeId, long weight) {
+            this.text = text;
+            this.type = type;
+            this.schemeId = schemeId;
+            this.weight = weight;
+        }
+    }
+
+    private static class Key {
+
+        private final String text;
+
+        private final int entry;
+
+        Key(String text, int entry) {
+            this.text = text;
+            this.entry = entry;
+        }
+    }
+
+    // Nodes are laid out breadth-first so each node's children are contiguous and sorted by
+    // the first character of their edge label.
+    private static class Trie {
+
+        private final Suggestion[] suggestions;
+
+        private final String[] labels;
+
+        private final int[] firstChild;
+
+        private final int[] childCount;
+
+        private final int[][] top;
+
+        private Trie(Suggestion[] suggestions, String[] labels, int[] firstChild, int[] childCount, int[][] top) {
+            this.suggestions = suggestions;
+            this.labels = labels;
+            this.firstChild = firstChild;
+            this.childCount = childCount;
+            this.top = top;
+        }
+
+        List<Suggestion> lookup(String prefix, int limit) {
+            int node = 0;
+            int matched = 0;
+            while (matched < prefix.length()) {
+                int child = findChild(node, prefix.charAt(matched));
+                if (child < 0) {
+                    return List.of();
+                }
+                String label = labels[child];
+                int common = 0;
+                while (common < label.length() && matched + common < prefix.length()
+                        && label.charAt(common) == prefix.charAt(matched + common)) {
+                    common++;
+                }
+                if (matched + common < prefix.length() && common < label.length()) {
+                    return List.of();
+                }
+                matched += common;
+                node = child;
+            }
+
+            int[] completions = top[node];
+            List<Suggestion> result = new ArrayList<>(Math.min(limit, completions.length));
+            for (int i = 0; i < completions.length && result.size() < limit; i++) {
+                result.add(suggestions[completions[i]]);
+            }
+            return result;
+        }
+
+        private int findChild(int node, char c) {
+            int low = firstChild[node];
+            int high = low + childCount[node] - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char first = labels[mid].charAt(0);
+                if (first < c) {
+                    low = mid + 1;
+                } else if (first > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        // Every entry is keyed by its full text and by each later word, so "kisan" finds
+        // "PM Kisan Samman Nidhi". Built from the sorted keys in one breadth-first pass; a
+        // node's label runs to the longest prefix its keys share, so there are no chains of
+        // single-child nodes.
+        static Trie build(List<Entry> entries, int maxResults) {
+            Suggestion[] suggestions = new Suggestion[entries.size()];
+            long[] weights = new long[entries.size()];
+            List<Key> keyList = new ArrayList<>();
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                suggestions[i] = new Suggestion(entry.text, entry.type, entry.schemeId);
+                weights[i] = entry.weight;
+
+                String normalized = TextAnalyzer.normalize(entry.text);
+                for (int start = 0; start < normalized.length(); start++) {
+                    boolean wordStart = start == 0 || !Character.isLetterOrDigit(normalized.charAt(start - 1));
+                    if (wordStart && Character.isLetterOrDigit(normalized.charAt(start))) {
+                        keyList.add(new Key(normalized.substring(start), i));
+                    }
+                }
+            }
+            Key[] keys = keyList.toArray(new Key[0]);
+            Arrays.sort(keys, Comparator.comparing(key -> key.text));
+
+            List<String> labels = new ArrayList<>();
+            List<int[]> ranges = new ArrayList<>(); // lo, hi, depth per node
+            labels.add("");
+            ranges.add(new int[]{0, keys.length, 0});
+            int[] firstChild = new int[Math.max(16, keys.length * 2 + 1)];
+            int[] childCount = new int[firstChild.length];
+            List<int[]> terminals = new ArrayList<>();
+
+            Deque<Integer> queue = new ArrayDeque<>();
+            queue.add(0);
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                int[] range = ranges.get(node);
+                int lo = range[0];
+                int hi = range[1];
+                int depth = range[2];
+
+                // Keys ending exactly here sort before the ones that continue
+                int t = lo;
+                while (t < hi && keys[t].text.length() == depth) {
+                    t++;
+                }
+                int[] ending = new int[t - lo];
+                for (int i = lo; i < t; i++) {
+                    ending[i - lo] = keys[i].entry;
+                }
+                terminals.add(ending);
+
+                firstChild[node] = labels.size();
+                while (t < hi) {
+                    char c = keys[t].text.charAt(depth);
+                    int g = t;
+                    while (g < hi && keys[g].text.charAt(depth) == c) {
+                        g++;
+                    }
+                    String first = keys[t].text;
+                    String last = keys[g - 1].text;
+                    int end = depth + 1;
+                    while (end < first.length() && end < last.length() && first.charAt(end) == last.charAt(end)) {
+                        end++;
+                    }
+                    int child = labels.size();
+                    labels.add(first.substring(depth, end));
+                    ranges.add(new int[]{t, g, end});
+                    queue.add(child);
+                    childCount[node]++;
+                    t = g;
+                }
+            }
+
+            // Children always come after their parent, so walk backwards to merge top-N upwards
+            int nodeCount = labels.size();
+            int[][] top = new int[nodeCount][];
+            Comparator<Integer> byWeight = (a, b) -> weights[a] != weights[b]
+                    ? Long.compare(weights[b], weights[a])
+                    : suggestions[a].getText().compareTo(suggestions[b].getText());
+            for (int node = nodeCount - 1; node >= 0; node--) {
+                List<Integer> candidates = new ArrayList<>();
+                for (int entry : terminals.get(node)) {
+                    candidates.add(entry);
+                }
+                for (int child = firstChild[node]; child < firstChild[node] + childCount[node]; child++) {
+                    for (int entry : top[child]) {
+                        candidates.add(entry);
+                    }
+                }
+                top[node] = candidates.stream().distinct().sorted(byWeight).limit(maxResults)
+                        .mapToInt(Integer::intValue).toArray();
+            }
+
+            return new Trie(suggestions, labels.toArray(new String[0]),
+                    Arrays.copyOf(firstChild, nodeCount), Arrays.copyOf(childCount, nodeCount), top);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.govscheme.portal.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.govscheme.portal.dto.ImportError;
+import com.govscheme.portal.dto.SchemeBulkSaveResult;
+import com.govscheme.portal.dto.SchemeImportReport;
+import com.govscheme.portal.event.SchemeChangedEvent;
+import com.govscheme.portal.model.NotificationJob;
+import com.govscheme.portal.model.Scheme;
+import com.govscheme.portal.repository.SchemeRepository;
+import com.govscheme.portal.util.CsvReader;
+import com.govscheme.portal.util.CsvWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Bulk scheme import and export as NDJSON (one scheme per line, the API's JSON shape) or CSV
+// (one column per field below; list fields joined with '|', ruleGroups as a JSON cell).
+// Imports are read and written a batch at a time with one unordered bulk write per batch, and
+// the schemes they create are announced in a single notification pass at the end.
+@Component
+public class SchemeTransfer {
+
+    public static final String NDJSON = "ndjson";
+
+    public static final String CSV = "csv";
+
+    private static final String LIST_SEPARATOR = "|";
+
+    private static final List<String> CSV_COLUMNS = List.of(
+            "id", "name", "shortDescription", "description", "department", "ministry", "officialWebsite",
+            "category", "benefits", "minAge", "maxAge", "eligibleStates", "eligibleDistricts",
+            "eligibleGenders", "maxIncome", "eligibleCategories", "eligibleOccupations", "ruleGroups",
+            "applicationProcess", "requiredDocuments", "applicationDeadline", "isActive", "imageUrl",
+            "pdfUrl", "createdAt"
+    );
+
+    private static final Set<String> LIST_COLUMNS = Set.of(
+            "benefits", "eligibleStates", "eligibleDistricts", "eligibleGenders", "eligibleCategories",
+            "eligibleOccupations", "requiredDocuments"
+    );
+
+    private static final String JSON_COLUMN = "ruleGroups";
+
+    @Autowired
+    private SchemeRepository schemeRepository;
+
+    @Autowired
+    private CatalogVersionPublisher catalogVersionPublisher;
+
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AttributeDictionary attributeDictionary;
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public SchemeImportReport importSchemes(InputStream in, String format, boolean notify) throws IOException {
+        long start = System.currentTimeMillis();
+        Import run = new Import();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        if (CSV.equals(format)) {
+            readCsv(new CsvReader(reader), run);
+        } else if (NDJSON.equals(format)) {
+            readNdjson(reader, run);
+        } else {
+            throw new RuntimeException("Unsupported import format: " + format);
+        }
+        flush(run);
+
+        List<String> jobIds = new ArrayList<>();
+        if (notify && !run.createdActive.isEmpty()) {
+            List<NotificationJob> jobs = notificationOutboxService.createNewSchemeJobs(run.createdActive);
+            notificationOutboxService.enqueueRecipients(jobs, run.createdActive);
+            jobs.forEach(job -> jobIds.add(job.getId()));
+        }
+
+        return new SchemeImportReport(run.records, run.created, run.updated, run.failed, run.errors, jobIds,
+                System.currentTimeMillis() - start);
+    }
+
+    // Streams straight from a Mongo cursor, so the catalog is never held in memory as a whole
+    public void exportSchemes(OutputStream out, String format) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        try (Stream<Scheme> schemes = schemeRepository.streamAll()) {
+            Iterator<Scheme> iterator = schemes.iterator();
+            if (CSV.equals(format)) {
+                CsvWriter writer = new CsvWriter(new OutputStreamWriter(buffered, StandardCharsets.UTF_8));
+                writer.writeRow(CSV_COLUMNS);
+                while (iterator.hasNext()) {
+                    writer.writeRow(toRow(iterator.next()));
+                }
+                writer.flush();
+            } else if (NDJSON.equals(format)) {
+                while (iterator.hasNext()) {
+                    buffered.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    buffered.write('\n');
+                }
+            } else {
+                throw new RuntimeException("Unsupported export format: " + format);
+            }
+        }
+        buffered.flush();
+    }
+
+    private void readNdjson(BufferedReader reader, Import run) throws IOException {
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            run.records++;
+            try {
+                add(run, lineNumber, objectMapper.readValue(line, Scheme.class));
+            } catch (JsonProcessingException e) {
+                reject(run, lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readCsv(CsvReader reader, Import run) throws IOException {
+        List<String> header = reader.next();
+        if (header == null) {
+            return;
+        }
+        for (String column : header) {
+            if (!CSV_COLUMNS.contains(column.strip())) {
+                throw new RuntimeException("Unknown CSV column: " + column);
+            }
+        }
+
+        List<String> row;
+        while ((row = reader.next()) != null) {
+            if (row.size() == 1 && row.get(0).isBlank()) {
+                continue;
+            }
+            run.records++;
+            if (row.size() != header.size()) {
+                reject(run, reader.getLine(), "Expected " + header.size() + " fields, found " + row.size());
+                continue;
+            }
+            try {
+                add(run, reader.getLine(), fromRow(header, row));
+            } catch (IllegalArgumentException | JsonProcessingException e) {
+                reject(run, reader.getLine(), "Invalid value: " + e.getMessage());
+            }
+        }
+    }
+
+    private Scheme fromRow(List<String> header, List<String> row) throws JsonProcessingException {
+        Map<String, Object> fields = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).strip();
+            String value = row.get(i).strip();
+            if (value.isEmpty()) {
+                continue;
+            }
+            if (LIST_COLUMNS.contains(column)) {
+                List<String> values = new ArrayList<>();
+                for (String item : value.split("\\" + LIST_SEPARATOR)) {
+                    if (!item.isBlank()) {
+                        values.add(item.strip());
+                    }
+                }
+                fields.put(column, values);
+            } else if (JSON_COLUMN.equals(column)) {
+                fields.put(column, objectMapper.readTree(value));
+            } else {
+                fields.put(column, value);
+            }
+        }
+        // Jackson does the type conversion (numbers, dates, booleans) as for a JSON body
+        return objectMapper.convertValue(fields, Scheme.class);
+    }
+
+    private List<String> toRow(Scheme scheme) throws JsonProcessingException {
+        JsonNode fields = objectMapper.valueToTree(scheme);
+        List<String> row = new ArrayList<>(CSV_COLUMNS.size());
+        for (String column : CSV_COLUMNS) {
+            JsonNode value = fields.get(column);
+            if (value == null || value.isNull()) {
+                row.add(null);
+            } else if (JSON_COLUMN.equals(column)) {
+                row.add(objectMapper.writeValueAsString(value));
+            } else if (value.isArray()) {
+                List<String> items = new ArrayList<>(value.size());
+                value.forEach(item -> items.add(item.asText()));
+                row.add(String.join(LIST_SEPARATOR, items));
+            } else {
+                row.add(value.asText());
+            }
+        }
+        return row;
+    }
+
+    private void add(Import run, long lineNumber, Scheme scheme) {
+        String problem = validate(scheme);
+        if (problem != null) {
+            reject(run, lineNumber, problem);
+            return;
+        }
+        EligibilityProgram rules;
+        try {
+            rules = EligibilityProgram.compileRuleGroups(scheme, attributeDictionary);
+        } catch (RuntimeException e) {
+            reject(run, lineNumber, e.getMessage());
+            return;
+        }
+        run.batch.add(scheme);
+        run.batchLines.add(lineNumber);
+        run.batchRules.add(rules);
+        if (run.batch.size() >= batchSize) {
+            flush(run);
+        }
+    }
+
+    private static String validate(Scheme scheme) {
+        if (scheme.getName() == null || scheme.getName().isBlank()) {
+            return "Scheme name is required";
+        }
+        if (scheme.getMinAge() != null && scheme.getMaxAge() != null && scheme.getMinAge() > scheme.getMaxAge()) {
+            return "minAge is greater than maxAge";
+        }
+        return null;
+    }
+
+    // The whole batch shares one catalog version: delta sync only needs versions to move forward
+    private void flush(Import run) {
+        if (run.batch.isEmpty()) {
+            return;
+        }
+        long version = schemeRepository.nextCatalogVersion();
+        LocalDateTime now = LocalDateTime.now();
+        for (Scheme scheme : run.batch) {
+            // Only used if the row creates its document; an update keeps the stored one
+            if (scheme.getCreatedAt() == null) {
+                scheme.setCreatedAt(now);
+            }
+            scheme.setUpdatedAt(now);
+            scheme.setCatalogVersion(version);
+        }
+
+        SchemeBulkSaveResult saved;
+        try {
+            saved = schemeRepository.bulkSave(run.batch);
+        } finally {
+            // Published once the bulk write is done, so no reader sees this version without its schemes
+            catalogVersionPublisher.written(version);
+        }
+        for (int i = 0; i < run.batch.size(); i++) {
+            String failure = saved.getFailures().get(i);
+            if (failure != null) {
+                reject(run, run.batchLines.get(i), failure);
+                continue;
+            }
+            Scheme scheme = run.batch.get(i);
+            // An id the catalog did not have yet is a create, not an update
+            if (saved.getInserted().contains(i)) {
+                run.created++;
+                if (Boolean.TRUE.equals(scheme.getIsActive())) {
+                    run.createdActive.add(scheme);
+                }
+            } else {
+                run.updated++;
+            }
+            eventPublisher.publishEvent(new SchemeChangedEvent(scheme, run.batchRules.get(i)));
+        }
+        run.batch.clear();
+        run.batchLines.clear();
+        run.batchRules.clear();
+    }
+
+    private void reject(Import run, long lineNumber, String error) {
+        run.failed++;
+        if (run.errors.size() < maxReportedErrors) {
+            run.errors.add(new ImportError(lineNumber, error));
+        }
+    }
+
+    private static class Import {
+
+        private final List<Scheme> batch = new ArrayList<>();
+
+        private final List<Long> batchLines = new ArrayList<>();
+
+        // Each row's rule-group program, compiled once when it was validated
+        private final List<EligibilityProgram> batchRules = new ArrayList<>();
+
+        private final List<Scheme> createdActive = new ArrayList<>();
+
+        private final List<ImportError> errors = new ArrayList<>();
+
+        private long records;
+
+        private long created;
+
+        private long updated;
+
+        private long failed;
+    }
+}
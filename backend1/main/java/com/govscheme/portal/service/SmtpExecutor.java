@@ -0,0 +1,86 @@
+package com.govscheme.portal.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Where SMTP conversations run. JavaMail's SMTPTransport synchronizes connect and sendMessage,
+// so on a virtual thread every send would pin its carrier for the whole network exchange and a
+// slow relay could stall all request handling. With virtual threads enabled the calls are
+// handed to a few platform threads instead, and the virtual caller parks on the result without
+// holding a carrier. With platform threads they run inline as before.
+@Component
+public class SmtpExecutor {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Also the cap on concurrent SMTP conversations in virtual-thread mode
+    @Value("${app.mail.io-threads:8}")
+    private int ioThreads;
+
+    private ExecutorService pool;
+
+    @PostConstruct
+    public void start() {
+        if (!virtualThreads) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(Math.max(1, ioThreads), runnable -> {
+            Thread thread = new Thread(runnable, "smtp-io-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    public void run(SmtpAction action) throws MessagingException {
+        if (pool == null) {
+            action.run();
+            return;
+        }
+
+        Future<?> result = pool.submit(() -> {
+            action.run();
+            return null;
+        });
+        try {
+            result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while sending mail", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof MessagingException messagingException) {
+                throw messagingException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new MessagingException("Failed to send mail", (Exception) cause);
+        }
+    }
+
+    public interface SmtpAction {
+        void run() throws MessagingException;
+    }
+}
@@ -0,0 +1,250 @@
+package com.govscheme.portal.service;
+
+import com.govscheme.portal.dto.MailPoolStats;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Long-lived SMTP connections for bulk mail. Each connection is authenticated once and then
+// sends many messages; it is re-opened when the server may have dropped it (idle too long) or
+// after a per-session message cap, since most relays limit messages per connection.
+// A send is only retried when it failed before the message reached the server: once
+// sendMessage has started, the relay may have accepted it, and a resend could deliver it twice.
+@Component
+public class SmtpTransportPool {
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private SmtpExecutor smtpExecutor;
+
+    @Value("${app.mail.pool.size:4}")
+    private int maxSize;
+
+    @Value("${app.mail.pool.max-idle-ms:30000}")
+    private long maxIdleMillis;
+
+    @Value("${app.mail.pool.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection;
+
+    @Value("${app.mail.pool.borrow-timeout-ms:30000}")
+    private long borrowTimeoutMillis;
+
+    // A connection idle longer than this gets a NOOP before use, so one the server closed is
+    // found (and replaced) before the message is handed over; back-to-back sends skip the probe
+    @Value("${app.mail.pool.probe-after-idle-ms:2000}")
+    private long probeAfterIdleMillis;
+
+    private final BlockingQueue<PooledConnection> idle = new LinkedBlockingQueue<>();
+
+    private final List<PooledConnection> connections = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger created = new AtomicInteger();
+
+    // Pooling needs the session and credentials, which only JavaMailSenderImpl exposes
+    public boolean isAvailable() {
+        return mailSender instanceof JavaMailSenderImpl;
+    }
+
+    public MailSession openSession() throws MessagingException {
+        return new PooledSession(borrow());
+    }
+
+    public MailPoolStats getStats(int bulkThreshold) {
+        List<MailPoolStats.Connection> connectionStats = connections.stream()
+                .map(PooledConnection::toStats)
+                .toList();
+        return new MailPoolStats(isAvailable(), maxSize, connections.size(), idle.size(), bulkThreshold, connectionStats);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (PooledConnection connection : connections) {
+            connection.close();
+        }
+        connections.clear();
+        idle.clear();
+    }
+
+    private PooledConnection borrow() throws MessagingException {
+        PooledConnection connection = idle.poll();
+        if (connection != null) {
+            return connection;
+        }
+
+        int id = created.incrementAndGet();
+        if (id <= maxSize) {
+            JavaMailSenderImpl sender = (JavaMailSenderImpl) mailSender;
+            connection = new PooledConnection(id, sender);
+            connections.add(connection);
+            return connection;
+        }
+        created.decrementAndGet();
+
+        try {
+            connection = idle.poll(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted waiting for an SMTP connection", e);
+        }
+        if (connection == null) {
+            throw new MessagingException("Timed out waiting for an SMTP connection");
+        }
+        return connection;
+    }
+
+    private class PooledSession implements MailSession {
+
+        private final PooledConnection connection;
+
+        private boolean closed = false;
+
+        PooledSession(PooledConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void send(MimeMessage message) throws MessagingException {
+            if (message.getSentDate() == null) {
+                message.setSentDate(new Date());
+            }
+            message.saveChanges();
+
+            smtpExecutor.run(() -> {
+                try {
+                    connection.ensureConnected();
+                } catch (MessagingException e) {
+                    // Nothing has been sent yet, so a fresh connection is safe to try once
+                    connection.close();
+                    connection.ensureConnected();
+                }
+                try {
+                    connection.send(message);
+                } catch (SendFailedException e) {
+                    // Rejected recipient; the connection itself is fine
+                    throw e;
+                } catch (MessagingException e) {
+                    // Not retried: the server may already have the message. The next send reconnects.
+                    connection.close();
+                    throw e;
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                idle.offer(connection);
+            }
+        }
+    }
+
+    private class PooledConnection {
+
+        private final int id;
+
+        private final JavaMailSenderImpl sender;
+
+        private final LocalDateTime createdAt = LocalDateTime.now();
+
+        private final AtomicLong messagesSent = new AtomicLong();
+
+        private final AtomicLong failures = new AtomicLong();
+
+        private final AtomicLong sessionsOpened = new AtomicLong();
+
+        private final AtomicLong sendNanos = new AtomicLong();
+
+        private Transport transport;
+
+        // Tracked separately because Transport.isConnected() probes the server
+        private volatile boolean connected = false;
+
+        private long lastUsedAt;
+
+        private int messagesInSession;
+
+        PooledConnection(int id, JavaMailSenderImpl sender) {
+            this.id = id;
+            this.sender = sender;
+        }
+
+        // Call ensureConnected first
+        void send(MimeMessage message) throws MessagingException {
+            long start = System.nanoTime();
+            try {
+                transport.sendMessage(message, message.getAllRecipients());
+                messagesInSession++;
+                messagesSent.incrementAndGet();
+            } catch (MessagingException e) {
+                failures.incrementAndGet();
+                throw e;
+            } finally {
+                lastUsedAt = System.currentTimeMillis();
+                sendNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+
+        void ensureConnected() throws MessagingException {
+            long idleMillis = System.currentTimeMillis() - lastUsedAt;
+            boolean stale = idleMillis > maxIdleMillis
+                    || messagesInSession >= maxMessagesPerConnection;
+            // isConnected() sends a NOOP, so only connections that have sat idle are probed
+            if (connected && !stale && (idleMillis <= probeAfterIdleMillis || transport.isConnected())) {
+                return;
+            }
+            close();
+
+            transport = sender.getSession().getTransport(sender.getProtocol() != null ? sender.getProtocol() : "smtp");
+            transport.connect(sender.getHost(), sender.getPort(), sender.getUsername(), sender.getPassword());
+            connected = true;
+            messagesInSession = 0;
+            sessionsOpened.incrementAndGet();
+        }
+
+        void close() {
+            if (transport != null) {
+                try {
+                    transport.close();
+                } catch (MessagingException e) {
+                    // Already gone
+                }
+                transport = null;
+            }
+            connected = false;
+        }
+
+        MailPoolStats.Connection toStats() {
+            long nanos = sendNanos.get();
+            double perSecond = nanos > 0 ? messagesSent.get() * 1_000_000_000.0 / nanos : 0;
+            return new MailPoolStats.Connection(
+                    id,
+                    connected,
+                    messagesSent.get(),
+                    failures.get(),
+                    sessionsOpened.get(),
+                    perSecond,
+                    createdAt
+            );
+        }
+    }
+}
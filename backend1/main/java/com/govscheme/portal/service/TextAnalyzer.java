@@ -0,0 +1,72 @@
+package com.govscheme.portal.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Tokenizer shared by the scheme search and suggestion indexes. Handles English and
+// Devanagari: vowel signs and viramas are combining marks, so they are kept inside the
+// token instead of splitting words apart.
+public final class TextAnalyzer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "the", "to", "with",
+            "और", "का", "की", "के", "को", "में", "से", "है", "हैं", "पर", "लिए"
+    );
+
+    private TextAnalyzer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean tokenChar = i < normalized.length() && isTokenChar(normalized.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                String token = normalized.substring(start, i);
+                if (!STOP_WORDS.contains(token)) {
+                    tokens.add(stem(token));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Lower-cased NFC form, so precomposed and decomposed Devanagari compare equal
+    public static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isTokenChar(char c) {
+        if (Character.isLetterOrDigit(c)) {
+            return true;
+        }
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    // Minimal English plural folding ("schemes" -> "scheme", "subsidies" -> "subsidy")
+    private static String stem(String token) {
+        if (token.length() <= 3 || token.charAt(token.length() - 1) != 's' || token.charAt(0) > 'z') {
+            return token;
+        }
+        if (token.endsWith("ies")) {
+            return token.substring(0, token.length() - 3) + "y";
+        }
+        if (token.endsWith("ss") || token.endsWith("us")) {
+            return token;
+        }
+        return token.substring(0, token.length() - 1);
+    }
+}
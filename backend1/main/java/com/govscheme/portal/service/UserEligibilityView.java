@@ -0,0 +1,192 @@
+package com.govscheme.portal.service;
+
+import com.govscheme.portal.dto.EligibilityConsistencyReport;
+import com.govscheme.portal.event.SchemeChangedEvent;
+import com.govscheme.portal.event.UserProfileChangedEvent;
+import com.govscheme.portal.model.Scheme;
+import com.govscheme.portal.model.User;
+import com.govscheme.portal.model.UserEligibility;
+import com.govscheme.portal.repository.UserEligibilityRepository;
+import com.govscheme.portal.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Materialized user -> eligible scheme ids (user_eligibility), so a dashboard read is one
+// lookup by _id. Maintained incrementally: a scheme change re-evaluates only the users Mongo
+// says match it plus those who held it before; a profile change re-evaluates that one user.
+// Scheme maintenance runs on a single thread so changes to the same scheme apply in order.
+@Component
+public class UserEligibilityView {
+
+    private static final Logger log = LoggerFactory.getLogger(UserEligibilityView.class);
+
+    private static final int MAX_MISMATCH_SAMPLE = 50;
+
+    @Autowired
+    private UserEligibilityRepository userEligibilityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EligibilityIndex eligibilityIndex;
+
+    @Autowired
+    private EligibilityCache eligibilityCache;
+
+    @Autowired
+    private BackgroundFailures backgroundFailures;
+
+    @Value("${app.eligibility.update-batch-size:1000}")
+    private int batchSize;
+
+    private final ExecutorService maintainer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-eligibility");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public List<Scheme> eligibleSchemes(String userId) {
+        UserEligibility view = userEligibilityRepository.findById(userId).orElse(null);
+        if (view == null) {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            view = refresh(user);
+        }
+        return eligibilityIndex.resolve(view.getSchemeIds());
+    }
+
+    public UserEligibility refresh(User user) {
+        UserEligibility view = new UserEligibility(user.getId(), eligibilityCache.eligibleSchemeIds(user), LocalDateTime.now());
+        return userEligibilityRepository.save(view);
+    }
+
+    @EventListener
+    public void onUserProfileChanged(UserProfileChangedEvent event) {
+        refresh(event.getUser());
+    }
+
+    @EventListener
+    public void onSchemeChanged(SchemeChangedEvent event) {
+        Scheme scheme = event.getScheme();
+        maintainer.execute(() -> {
+            try {
+                if (Boolean.TRUE.equals(scheme.getIsActive())) {
+                    applyScheme(scheme);
+                } else {
+                    userEligibilityRepository.removeSchemeEverywhere(scheme.getId());
+                }
+            } catch (Exception e) {
+                // The consistency check repairs whatever this run left behind
+                log.error("Failed to update eligibility views for scheme {}", scheme.getId(), e);
+                backgroundFailures.record("user-eligibility-views", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        maintainer.shutdownNow();
+    }
+
+    // Compares every stored view against a full recompute from the eligibility index,
+    // optionally rewriting the ones that differ
+    public EligibilityConsistencyReport verify(boolean repair) {
+        long start = System.currentTimeMillis();
+        long checked = 0;
+        long missing = 0;
+        long mismatched = 0;
+        List<String> sample = new ArrayList<>();
+
+        try (Stream<User> users = userRepository.streamEligibilityProfiles()) {
+            Iterator<User> iterator = users.iterator();
+            List<User> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() >= batchSize || !iterator.hasNext()) {
+                    Map<String, UserEligibility> views = new HashMap<>();
+                    userEligibilityRepository.findAllById(batch.stream().map(User::getId).toList())
+                            .forEach(view -> views.put(view.getUserId(), view));
+
+                    for (User user : batch) {
+                        checked++;
+                        UserEligibility view = views.get(user.getId());
+                        Set<String> expected = eligibilityIndex.eligibleSchemeIds(user);
+                        boolean differs;
+                        if (view == null) {
+                            // Missing views are filled on first read; not an inconsistency
+                            missing++;
+                            differs = false;
+                        } else {
+                            differs = !expected.equals(new HashSet<>(view.getSchemeIds()));
+                        }
+                        if (differs) {
+                            mismatched++;
+                            if (sample.size() < MAX_MISMATCH_SAMPLE) {
+                                sample.add(user.getId());
+                            }
+                            if (repair) {
+                                userEligibilityRepository.save(new UserEligibility(user.getId(), expected, LocalDateTime.now()));
+                            }
+                        }
+                    }
+                    batch.clear();
+                }
+            }
+        }
+
+        return new EligibilityConsistencyReport(checked, missing, mismatched, repair, sample,
+                System.currentTimeMillis() - start);
+    }
+
+    private void applyScheme(Scheme scheme) {
+        // Users whose attributes match the scheme now
+        try (Stream<String> eligible = userRepository.streamEligibleUserIds(scheme)) {
+            forEachBatch(eligible, batch -> userEligibilityRepository.addScheme(batch, scheme.getId()));
+        }
+
+        // Users who held it before but no longer match (the criteria may have narrowed)
+        try (Stream<String> holders = userEligibilityRepository.streamHolders(scheme.getId())) {
+            forEachBatch(holders, batch -> {
+                Set<String> stillEligible = new HashSet<>(userRepository.findEligibleUserIds(scheme, batch));
+                List<String> lost = batch.stream()
+                        .filter(userId -> !stillEligible.contains(userId))
+                        .toList();
+                userEligibilityRepository.removeScheme(lost, scheme.getId());
+            });
+        }
+    }
+
+    private void forEachBatch(Stream<String> ids, Consumer<List<String>> action) {
+        List<String> batch = new ArrayList<>(batchSize);
+        Iterator<String> iterator = ids.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            if (batch.size() >= batchSize) {
+                action.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            action.accept(batch);
+        }
+    }
+}
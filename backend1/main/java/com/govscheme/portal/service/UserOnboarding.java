@@ -0,0 +1,230 @@
+package com.govscheme.portal.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.govscheme.portal.dto.ImportError;
+import com.govscheme.portal.dto.RegisterRequest;
+import com.govscheme.portal.dto.UserImportReport;
+import com.govscheme.portal.model.User;
+import com.govscheme.portal.repository.UserRepository;
+import com.govscheme.portal.util.CsvReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Pre-registers citizens from a CSV (columns as in RegisterRequest; email and password required).
+// Rows are handled a chunk at a time: one $in query finds the emails already registered, the
+// BCrypt hashing goes through PasswordHasher, whose pool is capped at a share of the cores so
+// catalog traffic keeps the rest, and the users are written with one unordered bulk insert. Imported users verify their email with an OTP on
+// first login, exactly like self-registered ones.
+@Component
+public class UserOnboarding {
+
+    private static final Set<String> COLUMNS = Set.of(
+            "email", "password", "firstName", "lastName", "phoneNumber", "age", "state", "district",
+            "occupation", "annualIncome", "category", "gender"
+    );
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.onboarding.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public UserImportReport importUsers(InputStream in) throws IOException {
+        long start = System.currentTimeMillis();
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        Import run = new Import();
+
+        List<String> header = reader.next();
+        if (header == null) {
+            return report(run, start);
+        }
+        for (String column : header) {
+            if (!COLUMNS.contains(column.strip())) {
+                throw new RuntimeException("Unknown CSV column: " + column);
+            }
+        }
+        if (!header.stream().map(String::strip).toList().containsAll(List.of("email", "password"))) {
+            throw new RuntimeException("CSV must have email and password columns");
+        }
+
+        List<String> row;
+        while ((row = reader.next()) != null) {
+            if (row.size() == 1 && row.get(0).isBlank()) {
+                continue;
+            }
+            run.records++;
+            if (row.size() != header.size()) {
+                reject(run, reader.getLine(), "Expected " + header.size() + " fields, found " + row.size());
+                continue;
+            }
+            RegisterRequest request;
+            try {
+                request = fromRow(header, row);
+            } catch (IllegalArgumentException e) {
+                reject(run, reader.getLine(), "Invalid value: " + e.getMessage());
+                continue;
+            }
+            String problem = validate(request);
+            if (problem != null) {
+                reject(run, reader.getLine(), problem);
+            } else if (!run.seenEmails.add(request.getEmail())) {
+                reject(run, reader.getLine(), "Duplicate email in file");
+            } else {
+                run.batch.add(request);
+                run.batchLines.add(reader.getLine());
+                if (run.batch.size() >= batchSize) {
+                    flush(run);
+                }
+            }
+        }
+        flush(run);
+
+        return report(run, start);
+    }
+
+    private RegisterRequest fromRow(List<String> header, List<String> row) {
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String value = row.get(i).strip();
+            if (!value.isEmpty()) {
+                fields.put(header.get(i).strip(), value);
+            }
+        }
+        return objectMapper.convertValue(fields, RegisterRequest.class);
+    }
+
+    private static String validate(RegisterRequest request) {
+        String email = request.getEmail();
+        if (email == null || email.indexOf('@') <= 0 || email.indexOf('@') == email.length() - 1) {
+            return "A valid email is required";
+        }
+        if (request.getPassword() == null || request.getPassword().isBlank()) {
+            return "Password is required";
+        }
+        if (request.getAge() != null && (request.getAge() < 0 || request.getAge() > 150)) {
+            return "Age is out of range";
+        }
+        return null;
+    }
+
+    private void flush(Import run) throws IOException {
+        if (run.batch.isEmpty()) {
+            return;
+        }
+
+        List<String> emails = run.batch.stream().map(RegisterRequest::getEmail).toList();
+        Set<String> existing = userRepository.findExistingEmails(emails);
+        List<RegisterRequest> accepted = new ArrayList<>(run.batch.size());
+        List<Long> acceptedLines = new ArrayList<>(run.batch.size());
+        for (int i = 0; i < run.batch.size(); i++) {
+            if (existing.contains(emails.get(i))) {
+                reject(run, run.batchLines.get(i), "Email already exists");
+            } else {
+                accepted.add(run.batch.get(i));
+                acceptedLines.add(run.batchLines.get(i));
+            }
+        }
+
+        List<User> users = hashAll(accepted);
+        Map<Integer, String> failures = userRepository.bulkInsert(users);
+        for (int i = 0; i < users.size(); i++) {
+            String failure = failures.get(i);
+            if (failure != null) {
+                reject(run, acceptedLines.get(i), failure);
+            } else {
+                run.created++;
+            }
+        }
+        run.batch.clear();
+        run.batchLines.clear();
+    }
+
+    // BCrypt is deliberately slow, so this is where an import spends its time
+    private List<User> hashAll(List<RegisterRequest> requests) throws IOException {
+        List<String> hashes;
+        try {
+            hashes = passwordHasher.encodeAll(requests.stream().map(RegisterRequest::getPassword).toList());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while hashing passwords", e);
+        }
+        List<User> users = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            users.add(toUser(requests.get(i), hashes.get(i)));
+        }
+        return users;
+    }
+
+    private User toUser(RegisterRequest request, String passwordHash) {
+        User user = new User();
+        user.setEmail(request.getEmail());
+        user.setPassword(passwordHash);
+        user.setFirstName(request.getFirstName());
+        user.setLastName(request.getLastName());
+        user.setPhoneNumber(request.getPhoneNumber());
+        user.setAge(request.getAge());
+        user.setState(request.getState());
+        user.setDistrict(request.getDistrict());
+        user.setOccupation(request.getOccupation());
+        user.setAnnualIncome(request.getAnnualIncome());
+        user.setCategory(request.getCategory());
+        user.setGender(request.getGender());
+        user.setRoles(new HashSet<>(Set.of("USER")));
+        user.setIsEmailVerified(false);
+        user.setIsFirstLogin(true);
+        user.setIsActive(true);
+        return user;
+    }
+
+    private void reject(Import run, long lineNumber, String error) {
+        run.failed++;
+        if (run.errors.size() < maxReportedErrors) {
+            run.errors.add(new ImportError(lineNumber, error));
+        }
+    }
+
+    private static UserImportReport report(Import run, long start) {
+        long duration = System.currentTimeMillis() - start;
+        double perSecond = duration > 0 ? run.created * 1000.0 / duration : run.created;
+        return new UserImportReport(run.records, run.created, run.failed, run.errors, duration, perSecond);
+    }
+
+    private static class Import {
+
+        private final List<RegisterRequest> batch = new ArrayList<>();
+
+        private final List<Long> batchLines = new ArrayList<>();
+
+        private final Set<String> seenEmails = new HashSet<>();
+
+        private final List<ImportError> errors = new ArrayList<>();
+
+        private long records;
+
+        private long created;
+
+        private long failed;
+    }
+}
@@ -0,0 +1,33 @@
+package com.govscheme.portal.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveUserDetailsServiceAutoConfiguration;
+import org.springframework.context.annotation.Profile;
+
+// The public scheme read API on WebFlux and the reactive Mongo driver, for side-by-side load
+// tests against the servlet app. Only this package is scanned, so none of the servlet stack's
+// components start; both apps read the same collections through the same Scheme model.
+//
+//   mvn -Preactive spring-boot:run -Dstart-class=com.govscheme.portal.reactive.ReactivePortalApplication
+//
+// It listens on REACTIVE_SERVER_PORT (default 8081, application-reactive.properties), so both
+// apps can run at once. GovSchemePortalApplication's scan excludes this package.
+@Profile("reactive")
+@SpringBootApplication(exclude = {
+        MongoAutoConfiguration.class,
+        MongoDataAutoConfiguration.class,
+        ReactiveUserDetailsServiceAutoConfiguration.class
+})
+public class ReactivePortalApplication {
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(ReactivePortalApplication.class);
+        // Spring MVC is on the classpath too, which Boot would otherwise prefer
+        application.setWebApplicationType(WebApplicationType.REACTIVE);
+        application.setAdditionalProfiles("reactive");
+        application.run(args);
+    }
+}
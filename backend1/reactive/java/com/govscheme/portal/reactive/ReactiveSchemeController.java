@@ -0,0 +1,60 @@
+package com.govscheme.portal.reactive;
+
+import com.govscheme.portal.dto.CatalogChanges;
+import com.govscheme.portal.model.Scheme;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+// Mongo-backed endpoints of SchemeController's public API. Listings are returned as a Flux, so
+// they are written as a JSON array (or NDJSON, if asked for) element by element while the
+// cursor is read, and a slow client slows the cursor down rather than buffering the catalog.
+// The ETag is checked by WebFlux itself: a matching If-None-Match gets a 304 and the query's
+// Flux is never subscribed. Search, filter and suggest work off the servlet app's in-memory
+// indexes, and the keyset-paged /public/list is not ported; none of them are served here.
+@Profile("reactive")
+@RestController
+@RequestMapping("/api/schemes")
+@CrossOrigin(origins = "*")
+public class ReactiveSchemeController {
+
+    @Autowired
+    private ReactiveSchemeService schemeService;
+
+    @GetMapping(value = "/public/all", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<Scheme>>> getAllSchemes() {
+        return schemeService.getCatalogETag().map(etag -> ResponseEntity.ok().eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(schemeService.getAllActiveSchemes()));
+    }
+
+    @GetMapping(value = "/public/category/{category}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<Scheme>>> getSchemesByCategory(@PathVariable String category) {
+        return schemeService.getCatalogETag().map(etag -> ResponseEntity.ok().eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(schemeService.getSchemesByCategory(category)));
+    }
+
+    @GetMapping("/public/changes")
+    public Mono<ResponseEntity<CatalogChanges>> getChanges(@RequestParam(defaultValue = "0") long since) {
+        return schemeService.getChangesSince(since).map(changes -> ResponseEntity.ok()
+                .eTag("\"catalog-" + changes.getVersion() + "\"")
+                .cacheControl(CacheControl.noCache())
+                .body(changes));
+    }
+
+    @GetMapping("/public/{id}")
+    public Mono<ResponseEntity<?>> getSchemeById(@PathVariable String id) {
+        return schemeService.getSchemeById(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .onErrorResume(RuntimeException.class,
+                        e -> Mono.just(ResponseEntity.badRequest().body(Map.of("error", e.getMessage()))));
+    }
+}
@@ -0,0 +1,25 @@
+package com.govscheme.portal.reactive;
+
+import com.govscheme.portal.model.Scheme;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.Meta;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+// SchemeRepository's public reads on the reactive driver. Cursor batches are kept small so
+// documents flow to the client as they arrive, and the next batch is only requested once the
+// subscriber has asked for more.
+@Profile("reactive")
+@Repository
+public interface ReactiveSchemeRepository extends ReactiveMongoRepository<Scheme, String> {
+    @Meta(cursorBatchSize = 100)
+    Flux<Scheme> findByIsActiveTrue();
+
+    @Meta(cursorBatchSize = 100)
+    Flux<Scheme> findByCategory(String category);
+
+    @Query(value = "{ 'catalogVersion': { $gt: ?0, $lte: ?1 } }", sort = "{ 'catalogVersion': 1 }")
+    Flux<Scheme> findChangedBetween(long afterVersion, long upToVersion);
+}
@@ -0,0 +1,94 @@
+package com.govscheme.portal.reactive;
+
+import com.govscheme.portal.dto.CatalogChanges;
+import com.govscheme.portal.model.Counter;
+import com.govscheme.portal.model.Scheme;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The reads behind the reactive public endpoints, with the same catalog-version ETags as
+// SchemeService: the version is the published catalog counter, re-read at most once per TTL.
+@Profile("reactive")
+@Service
+public class ReactiveSchemeService {
+
+    // Published, not allocated: see SchemeRepositoryCustomImpl.publishCatalogVersion
+    private static final String CATALOG_COUNTER = "catalog-published";
+
+    @Autowired
+    private ReactiveSchemeRepository schemeRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Value("${app.catalog.version-ttl-ms:1000}")
+    private long catalogVersionTtlMs;
+
+    private volatile long catalogVersion = -1;
+
+    private volatile long catalogVersionReadAt = 0;
+
+    public Flux<Scheme> getAllActiveSchemes() {
+        return schemeRepository.findByIsActiveTrue();
+    }
+
+    public Flux<Scheme> getSchemesByCategory(String category) {
+        return schemeRepository.findByCategory(category);
+    }
+
+    public Mono<Scheme> getSchemeById(String id) {
+        return schemeRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Scheme not found")));
+    }
+
+    public Mono<Long> getCatalogVersion() {
+        long now = System.currentTimeMillis();
+        if (catalogVersion >= 0 && now - catalogVersionReadAt <= catalogVersionTtlMs) {
+            return Mono.just(catalogVersion);
+        }
+        return currentCatalogVersion().doOnNext(version -> {
+            catalogVersion = version;
+            catalogVersionReadAt = now;
+        });
+    }
+
+    public Mono<String> getCatalogETag() {
+        return getCatalogVersion().map(version -> "\"catalog-" + version + "\"");
+    }
+
+    // Same contract as SchemeService.getChangesSince
+    public Mono<CatalogChanges> getChangesSince(long since) {
+        return currentCatalogVersion().flatMap(version -> {
+            if (since <= 0) {
+                return schemeRepository.findByIsActiveTrue().collectList()
+                        .map(schemes -> new CatalogChanges(since, version, schemes, List.<String>of()));
+            }
+            return schemeRepository.findChangedBetween(since, version).collectList().map(changed -> {
+                List<Scheme> upserted = new ArrayList<>();
+                List<String> deactivated = new ArrayList<>();
+                for (Scheme scheme : changed) {
+                    if (Boolean.TRUE.equals(scheme.getIsActive())) {
+                        upserted.add(scheme);
+                    } else {
+                        deactivated.add(scheme.getId());
+                    }
+                }
+                return new CatalogChanges(since, version, upserted, deactivated);
+            });
+        });
+    }
+
+    private Mono<Long> currentCatalogVersion() {
+        return mongoTemplate.findById(CATALOG_COUNTER, Counter.class)
+                .map(counter -> counter.getSeq() != null ? counter.getSeq() : 0L)
+                .defaultIfEmpty(0L);
+    }
+}
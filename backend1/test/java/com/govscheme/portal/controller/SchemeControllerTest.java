@@ -0,0 +1,69 @@
+package com.govscheme.portal.controller;
+
+import com.govscheme.portal.security.JwtUtil;
+import com.govscheme.portal.service.SchemeService;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class SchemeControllerTest {
+
+    @Mock
+    private SchemeService schemeService;
+
+    @InjectMocks
+    private SchemeController schemeController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(schemeController).build();
+    }
+
+    @Test
+    void userSeesTheirOwnEligibleSchemes() throws Exception {
+        when(schemeService.getEligibleSchemes("user-1")).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/schemes/eligible/user-1")
+                        .requestAttr(JwtUtil.CLAIMS_ATTRIBUTE, Jwts.claims(Map.of("userId", "user-1"))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void userCannotSeeAnotherUsersEligibleSchemes() throws Exception {
+        mockMvc.perform(get("/api/schemes/eligible/user-2")
+                        .requestAttr(JwtUtil.CLAIMS_ATTRIBUTE, Jwts.claims(Map.of("userId", "user-1"))))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(schemeService);
+    }
+
+    @Test
+    void adminSeesAnyUsersEligibleSchemes() throws Exception {
+        when(schemeService.getEligibleSchemes("user-2")).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/schemes/eligible/user-2")
+                        .requestAttr(JwtUtil.CLAIMS_ATTRIBUTE, Jwts.claims(Map.of("userId", "admin-1")))
+                        .with(request -> {
+                            request.addUserRole("ADMIN");
+                            return request;
+                        }))
+                .andExpect(status().isOk());
+    }
+}
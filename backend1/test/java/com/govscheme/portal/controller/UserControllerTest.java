@@ -0,0 +1,136 @@
+package com.govscheme.portal.controller;
+
+import com.govscheme.portal.model.User;
+import com.govscheme.portal.repository.UserRepository;
+import com.govscheme.portal.security.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class UserControllerTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private UserController userController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
+    }
+
+    private static MockHttpServletRequestBuilder as(String userId, MockHttpServletRequestBuilder request) {
+        return request.requestAttr(JwtUtil.CLAIMS_ATTRIBUTE, Jwts.claims(Map.of("userId", userId)));
+    }
+
+    private static MockHttpServletRequestBuilder asAdmin(String userId, MockHttpServletRequestBuilder request) {
+        return as(userId, request).with(mock -> {
+            mock.addUserRole("ADMIN");
+            return mock;
+        });
+    }
+
+    private static User user(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@example.com");
+        user.setPassword("hash");
+        return user;
+    }
+
+    @Test
+    void userReadsTheirOwnRecordWithoutThePassword() throws Exception {
+        when(userRepository.findById("user-1")).thenReturn(Optional.of(user("user-1")));
+
+        mockMvc.perform(as("user-1", get("/api/users/user-1")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("user-1"))
+                .andExpect(jsonPath("$.password").doesNotExist());
+    }
+
+    @Test
+    void userCannotReadAnotherUsersRecord() throws Exception {
+        mockMvc.perform(as("user-1", get("/api/users/user-2")))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void anonymousRequestCannotReadARecord() throws Exception {
+        mockMvc.perform(get("/api/users/user-2"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void adminReadsAnyRecord() throws Exception {
+        when(userRepository.findById("user-2")).thenReturn(Optional.of(user("user-2")));
+
+        mockMvc.perform(asAdmin("admin-1", get("/api/users/user-2")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("user-2"));
+    }
+
+    @Test
+    void userCannotReplaceAnotherUsersRecord() throws Exception {
+        mockMvc.perform(as("user-1", put("/api/users/user-2"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Changed\"}"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userRepository, eventPublisher);
+    }
+
+    @Test
+    void userReplacesTheirOwnRecord() throws Exception {
+        when(userRepository.findById("user-1")).thenReturn(Optional.of(user("user-1")));
+        when(userRepository.replaceIfVersion(any(User.class), anyLong())).thenReturn(true);
+
+        mockMvc.perform(as("user-1", put("/api/users/user-1"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Changed\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName").value("Changed"));
+    }
+
+    @Test
+    void userCannotPatchAnotherUsersRecord() throws Exception {
+        mockMvc.perform(as("user-1", patch("/api/users/user-2"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Changed\"}"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userRepository, eventPublisher);
+    }
+}
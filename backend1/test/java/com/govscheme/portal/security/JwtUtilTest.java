@@ -0,0 +1,54 @@
+package com.govscheme.portal.security;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilTest {
+
+    private static MockHttpServletRequest requestFrom(String userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(JwtUtil.CLAIMS_ATTRIBUTE, Jwts.claims(Map.of("userId", userId)));
+        return request;
+    }
+
+    @Test
+    void userIdComesFromTheVerifiedClaims() {
+        assertEquals("user-1", JwtUtil.userId(requestFrom("user-1")));
+    }
+
+    @Test
+    void anonymousRequestHasNoUserId() {
+        assertNull(JwtUtil.userId(new MockHttpServletRequest()));
+    }
+
+    @Test
+    void userMayActOnTheirOwnRecord() {
+        assertTrue(JwtUtil.isSelfOrAdmin(requestFrom("user-1"), "user-1"));
+    }
+
+    @Test
+    void userMayNotActOnAnotherUsersRecord() {
+        assertFalse(JwtUtil.isSelfOrAdmin(requestFrom("user-1"), "user-2"));
+    }
+
+    @Test
+    void anonymousRequestMayNotActOnAnyRecord() {
+        assertFalse(JwtUtil.isSelfOrAdmin(new MockHttpServletRequest(), "user-1"));
+        assertFalse(JwtUtil.isSelfOrAdmin(new MockHttpServletRequest(), null));
+    }
+
+    @Test
+    void adminMayActOnAnyRecord() {
+        MockHttpServletRequest request = requestFrom("admin-1");
+        request.addUserRole("ADMIN");
+        assertTrue(JwtUtil.isSelfOrAdmin(request, "user-2"));
+    }
+}
@@ -0,0 +1,36 @@
+package com.govscheme.portal.service;
+
+import com.govscheme.portal.dto.BackgroundTaskStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackgroundFailuresTest {
+
+    @Test
+    void countsFailuresPerTaskAndKeepsTheLastError() {
+        BackgroundFailures backgroundFailures = new BackgroundFailures();
+
+        backgroundFailures.record("suggestions", new IllegalStateException("first"));
+        backgroundFailures.record("suggestions", new IllegalStateException("second"));
+        backgroundFailures.record("catalog-snapshot", new RuntimeException("down"));
+
+        List<BackgroundTaskStats> stats = backgroundFailures.getStats();
+        assertEquals(2, stats.size());
+        assertEquals("catalog-snapshot", stats.get(0).getTask());
+        assertEquals(1L, stats.get(0).getFailures());
+        assertEquals("suggestions", stats.get(1).getTask());
+        assertEquals(2L, stats.get(1).getFailures());
+        assertEquals("java.lang.IllegalStateException: second", stats.get(1).getLastError());
+        assertNotNull(stats.get(1).getLastFailureAt());
+    }
+
+    @Test
+    void reportsNothingBeforeTheFirstFailure() {
+        assertTrue(new BackgroundFailures().getStats().isEmpty());
+    }
+}
@@ -0,0 +1,131 @@
+package com.govscheme.portal.service;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.govscheme.portal.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.spy;
+
+@ExtendWith(MockitoExtension.class)
+class EligibilityBatchEvaluatorTest {
+
+    @Mock
+    private EligibilityIndex snapshot;
+
+    private ObjectMapper objectMapper;
+
+    private EligibilityBatchEvaluator evaluator;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = spy(new ObjectMapper());
+        evaluator = new EligibilityBatchEvaluator();
+        ReflectionTestUtils.setField(evaluator, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(evaluator, "chunkSize", 2);
+        ReflectionTestUtils.setField(evaluator, "parallelism", 1);
+        ReflectionTestUtils.setField(evaluator, "maxLineLength", 100);
+        evaluator.start();
+
+        // One scheme per profile, named after its age; age 99 breaks the evaluation
+        lenient().when(snapshot.eligibleSchemeIds(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            List<List<String>> eligible = new ArrayList<>();
+            for (User user : users) {
+                if (user.getAge() == 99) {
+                    throw new IllegalStateException("broken rules");
+                }
+                eligible.add(List.of("scheme-" + user.getAge()));
+            }
+            return eligible;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        evaluator.stop();
+    }
+
+    private List<JsonNode> evaluate(String input) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        evaluator.evaluate(snapshot, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+
+    private static String profile(String ref, int age) {
+        return "{\"ref\":\"" + ref + "\",\"age\":" + age + "}";
+    }
+
+    @Test
+    void answersEveryLineInOrder() throws Exception {
+        List<JsonNode> results = evaluate(profile("a", 20) + "\r\n" + profile("b", 30) + "\n\n" + profile("c", 40));
+
+        assertEquals(3, results.size());
+        assertEquals(1, results.get(0).get("line").asInt());
+        assertEquals("scheme-20", results.get(0).get("schemeIds").get(0).asText());
+        assertEquals(2, results.get(1).get("line").asInt());
+        assertEquals(4, results.get(2).get("line").asInt());
+        assertEquals("c", results.get(2).get("ref").asText());
+    }
+
+    @Test
+    void rejectsAnOverlongLineWithoutBufferingItAndCarriesOn() throws Exception {
+        String overlong = "{\"ref\":\"" + "x".repeat(10_000) + "\",\"age\":20}";
+
+        List<JsonNode> results = evaluate(profile("a", 20) + "\n" + overlong + "\n" + profile("c", 40) + "\n");
+
+        assertEquals(3, results.size());
+        assertEquals(2, results.get(1).get("line").asInt());
+        assertEquals("Line longer than 100 characters", results.get(1).get("error").asText());
+        assertEquals("scheme-40", results.get(2).get("schemeIds").get(0).asText());
+    }
+
+    @Test
+    void failsTheLinesOfAChunkThatCannotBeEvaluatedAndCarriesOn() throws Exception {
+        List<JsonNode> results = evaluate(String.join("\n",
+                profile("a", 20), profile("b", 99), profile("c", 30), profile("d", 40)));
+
+        assertEquals(4, results.size());
+        assertEquals("Evaluation failed", results.get(0).get("error").asText());
+        assertEquals("Evaluation failed", results.get(1).get("error").asText());
+        assertEquals("scheme-30", results.get(2).get("schemeIds").get(0).asText());
+        assertEquals("scheme-40", results.get(3).get("schemeIds").get(0).asText());
+    }
+
+    @Test
+    void endsWithAnErrorRecordWhenAChunkCannotBeWritten() throws Exception {
+        doThrow(new JsonMappingException(null, "cannot serialize"))
+                .when(objectMapper).writeValue(any(OutputStream.class), any());
+
+        List<JsonNode> results = evaluate(profile("a", 20) + "\n" + profile("b", 30));
+
+        assertEquals(1, results.size());
+        assertFalse(results.get(0).has("line"));
+        assertTrue(results.get(0).get("error").asText().startsWith("Batch stopped"));
+    }
+}
@@ -0,0 +1,167 @@
+package com.govscheme.portal.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Minimal in-process SMTP server for tests: accepts anything, records every message it is
+// handed, and can be told to turn connections away, drop idle connections, or drop the
+// connection after receiving a message but before acknowledging it.
+class FakeSmtpServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+
+    private final Thread acceptor;
+
+    private final List<Socket> clients = new CopyOnWriteArrayList<>();
+
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final AtomicInteger rejectConnections = new AtomicInteger();
+
+    private final AtomicInteger dropAfterData = new AtomicInteger();
+
+    private volatile long dataDelayMillis = 0;
+
+    FakeSmtpServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptLoop, "fake-smtp");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    // Connections accepted, including turned-away ones
+    int connections() {
+        return connections.get();
+    }
+
+    // Raw DATA of every message received, in order
+    List<String> messages() {
+        return messages;
+    }
+
+    // The next n connections get a 421 greeting and are closed
+    void rejectNextConnections(int n) {
+        rejectConnections.set(n);
+    }
+
+    // The next n messages are recorded, then the connection is closed without the final 250
+    void dropAfterNextData(int n) {
+        dropAfterData.set(n);
+    }
+
+    // Delay before acknowledging each message, to simulate a slow relay
+    void delayData(long millis) {
+        dataDelayMillis = millis;
+    }
+
+    // Closes every open client connection, as a relay timing out idle sessions would
+    void dropConnections() {
+        for (Socket client : clients) {
+            closeQuietly(client);
+        }
+        clients.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        dropConnections();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                connections.incrementAndGet();
+                clients.add(client);
+                Thread handler = new Thread(() -> handle(client), "fake-smtp-client");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket client) {
+        try (client) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+            OutputStream out = client.getOutputStream();
+            if (rejectConnections.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                reply(out, "421 fake service not available");
+                return;
+            }
+            reply(out, "220 fake ESMTP ready");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 fake");
+                    case "MAIL", "RCPT", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 end with <CRLF>.<CRLF>");
+                        messages.add(readData(in));
+                        if (dropAfterData.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                            return;
+                        }
+                        if (dataDelayMillis > 0) {
+                            Thread.sleep(dataDelayMillis);
+                        }
+                        reply(out, "250 queued");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 bye");
+                        return;
+                    }
+                    default -> reply(out, "502 not implemented");
+                }
+            }
+        } catch (SocketException e) {
+            // Dropped by dropConnections() or by the client
+        } catch (IOException e) {
+            // Client went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    private static String readData(BufferedReader in) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            data.append(line.startsWith("..") ? line.substring(1) : line).append("\n");
+        }
+        return data.toString();
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.govscheme.portal.service;
+
+import com.govscheme.portal.model.EmailOutbox;
+import com.govscheme.portal.model.Scheme;
+import com.govscheme.portal.repository.EmailOutboxRepository;
+import com.govscheme.portal.repository.SchemeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Outbox batches delivered to an in-process SMTP relay
+@ExtendWith(MockitoExtension.class)
+class NotificationOutboxWorkerTest {
+
+    private static final String OWNER = "worker-1:batch-1";
+
+    @Mock
+    private EmailOutboxRepository outboxRepository;
+
+    @Mock
+    private SchemeRepository schemeRepository;
+
+    private FakeSmtpServer server;
+
+    private SmtpTransportPool transportPool;
+
+    private NotificationOutboxWorker worker;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeSmtpServer();
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(server.port());
+        Properties properties = new Properties();
+        properties.put("mail.smtp.connectiontimeout", "5000");
+        properties.put("mail.smtp.timeout", "5000");
+        mailSender.setJavaMailProperties(properties);
+
+        SmtpExecutor smtpExecutor = new SmtpExecutor();
+        smtpExecutor.start();
+
+        transportPool = new SmtpTransportPool();
+        ReflectionTestUtils.setField(transportPool, "mailSender", mailSender);
+        ReflectionTestUtils.setField(transportPool, "smtpExecutor", smtpExecutor);
+        ReflectionTestUtils.setField(transportPool, "maxSize", 1);
+        ReflectionTestUtils.setField(transportPool, "maxIdleMillis", 30000L);
+        ReflectionTestUtils.setField(transportPool, "maxMessagesPerConnection", 100);
+        ReflectionTestUtils.setField(transportPool, "borrowTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(transportPool, "probeAfterIdleMillis", 0L);
+
+        EmailService emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "mailSender", mailSender);
+        ReflectionTestUtils.setField(emailService, "fromEmail", "portal@example.com");
+        ReflectionTestUtils.setField(emailService, "appUrl", "http://localhost:3000");
+        ReflectionTestUtils.setField(emailService, "transportPool", transportPool);
+        ReflectionTestUtils.setField(emailService, "smtpExecutor", smtpExecutor);
+        ReflectionTestUtils.setField(emailService, "bulkThreshold", 1);
+        emailService.bindTemplates();
+
+        worker = new NotificationOutboxWorker();
+        ReflectionTestUtils.setField(worker, "outboxRepository", outboxRepository);
+        ReflectionTestUtils.setField(worker, "schemeRepository", schemeRepository);
+        ReflectionTestUtils.setField(worker, "emailService", emailService);
+        ReflectionTestUtils.setField(worker, "ratePerSecond", 1000.0);
+        ReflectionTestUtils.setField(worker, "maxAttempts", 5);
+        ReflectionTestUtils.setField(worker, "leaseSeconds", 120L);
+        ReflectionTestUtils.setField(worker, "backoffSeconds", 30L);
+
+        lenient().when(outboxRepository.reserveSendSlot(anyLong()))
+                .thenAnswer(invocation -> TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+        lenient().when(schemeRepository.findById("scheme-1")).thenReturn(Optional.of(scheme()));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        transportPool.shutdown();
+        server.close();
+    }
+
+    private static Scheme scheme() {
+        Scheme scheme = new Scheme();
+        scheme.setId("scheme-1");
+        scheme.setName("Farm Support");
+        scheme.setCategory("Agriculture");
+        scheme.setDepartment("Agriculture");
+        scheme.setShortDescription("Support for small farmers");
+        scheme.setBenefits(List.of("Seed subsidy"));
+        return scheme;
+    }
+
+    private static List<EmailOutbox> batch(int size) {
+        List<EmailOutbox> batch = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            EmailOutbox message = new EmailOutbox();
+            message.setId("message-" + i);
+            message.setJobId("job-1");
+            message.setSchemeId("scheme-1");
+            message.setToEmail("citizen" + i + "@example.com");
+            message.setUserName("Citizen " + i);
+            message.setStatus(EmailOutbox.Status.SENDING);
+            message.setAttempts(1);
+            message.setLeaseOwner(OWNER);
+            batch.add(message);
+        }
+        return batch;
+    }
+
+    private void process(List<EmailOutbox> batch) {
+        ReflectionTestUtils.invokeMethod(worker, "process", OWNER, batch);
+    }
+
+    @Test
+    void marksEachMessageSentAsSoonAsTheRelayTakesIt() {
+        List<Integer> deliveredWhenMarked = new ArrayList<>();
+        doAnswer(invocation -> deliveredWhenMarked.add(server.messages().size()))
+                .when(outboxRepository).markSent(anyList());
+
+        List<EmailOutbox> batch = batch(3);
+        process(batch);
+
+        assertEquals(List.of(1, 2, 3), deliveredWhenMarked);
+        for (EmailOutbox message : batch) {
+            verify(outboxRepository).markSent(List.of(message));
+        }
+        assertEquals(1, server.connections());
+    }
+
+    @Test
+    void failedMessageIsLeftForRetryAndTheRestAreSent() {
+        server.dropAfterNextData(1);
+
+        List<EmailOutbox> batch = batch(3);
+        process(batch);
+
+        verify(outboxRepository).markFailed(eq(batch.get(0)), any(), eq(5), any(Duration.class));
+        verify(outboxRepository, never()).markSent(List.of(batch.get(0)));
+        verify(outboxRepository).markSent(List.of(batch.get(1)));
+        verify(outboxRepository).markSent(List.of(batch.get(2)));
+        assertEquals(3, server.messages().size());
+    }
+
+    @Test
+    void renewsTheLeaseAndStopsOnceAnotherWorkerHasTheBatch() {
+        // A zero lease is due for renewal before every send
+        ReflectionTestUtils.setField(worker, "leaseSeconds", 0L);
+        when(outboxRepository.renewLease(eq(OWNER), any(Duration.class))).thenReturn(true, false);
+
+        process(batch(3));
+
+        verify(outboxRepository, times(2)).renewLease(eq(OWNER), any(Duration.class));
+        verify(outboxRepository, times(1)).markSent(anyList());
+        assertEquals(1, server.messages().size());
+    }
+
+    @Test
+    void waitsForTheSlotReservedOnTheSharedTimeline() {
+        when(outboxRepository.reserveSendSlot(anyLong()))
+                .thenAnswer(invocation -> TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() + 200));
+
+        long start = System.nanoTime();
+        process(batch(1));
+
+        // 1000 messages per second: one slot every 1000 microseconds
+        verify(outboxRepository).reserveSendSlot(1000L);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(190));
+        assertEquals(1, server.messages().size());
+    }
+}
@@ -0,0 +1,66 @@
+package com.govscheme.portal.service;
+
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// The virtual-thread mode, where sends run on the executor's platform threads
+class SmtpExecutorTest {
+
+    private SmtpExecutor smtpExecutor;
+
+    @BeforeEach
+    void setUp() {
+        smtpExecutor = new SmtpExecutor();
+        ReflectionTestUtils.setField(smtpExecutor, "virtualThreads", true);
+        ReflectionTestUtils.setField(smtpExecutor, "ioThreads", 2);
+        smtpExecutor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        smtpExecutor.stop();
+        Thread.interrupted();
+    }
+
+    @Test
+    void rethrowsAMessagingExceptionAsIs() {
+        MessagingException failure = new MessagingException("550 rejected");
+
+        MessagingException thrown = assertThrows(MessagingException.class, () -> smtpExecutor.run(() -> {
+            throw failure;
+        }));
+
+        assertSame(failure, thrown);
+    }
+
+    @Test
+    void rethrowsARuntimeExceptionAsIs() {
+        IllegalStateException failure = new IllegalStateException("broken");
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> smtpExecutor.run(() -> {
+            throw failure;
+        }));
+
+        assertSame(failure, thrown);
+    }
+
+    @Test
+    void keepsTheInterruptAsTheCause() {
+        Thread.currentThread().interrupt();
+
+        MessagingException thrown = assertThrows(MessagingException.class,
+                () -> smtpExecutor.run(() -> LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(5))));
+
+        assertInstanceOf(InterruptedException.class, thrown.getCause());
+    }
+}
@@ -0,0 +1,126 @@
+package com.govscheme.portal.service;
+
+import com.govscheme.portal.dto.MailPoolStats;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SmtpTransportPoolTest {
+
+    private FakeSmtpServer server;
+
+    private JavaMailSenderImpl mailSender;
+
+    private SmtpTransportPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeSmtpServer();
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(server.port());
+        Properties properties = new Properties();
+        properties.put("mail.smtp.connectiontimeout", "5000");
+        properties.put("mail.smtp.timeout", "5000");
+        mailSender.setJavaMailProperties(properties);
+
+        SmtpExecutor smtpExecutor = new SmtpExecutor();
+        smtpExecutor.start();
+
+        pool = new SmtpTransportPool();
+        ReflectionTestUtils.setField(pool, "mailSender", mailSender);
+        ReflectionTestUtils.setField(pool, "smtpExecutor", smtpExecutor);
+        ReflectionTestUtils.setField(pool, "maxSize", 2);
+        ReflectionTestUtils.setField(pool, "maxIdleMillis", 30000L);
+        ReflectionTestUtils.setField(pool, "maxMessagesPerConnection", 100);
+        ReflectionTestUtils.setField(pool, "borrowTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(pool, "probeAfterIdleMillis", 0L);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        pool.shutdown();
+        server.close();
+    }
+
+    private MimeMessage message(String subject) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+        helper.setFrom("portal@example.com");
+        helper.setTo("citizen@example.com");
+        helper.setSubject(subject);
+        helper.setText("body");
+        return message;
+    }
+
+    private void sendAll(String... subjects) throws MessagingException {
+        try (MailSession session = pool.openSession()) {
+            for (String subject : subjects) {
+                session.send(message(subject));
+            }
+        }
+    }
+
+    @Test
+    void sendsManyMessagesOverOneConnection() throws Exception {
+        sendAll("m1", "m2", "m3", "m4", "m5");
+        sendAll("m6", "m7", "m8", "m9", "m10");
+
+        assertEquals(1, server.connections());
+        assertEquals(10, server.messages().size());
+
+        MailPoolStats stats = pool.getStats(10);
+        assertEquals(1, stats.getOpen());
+        assertEquals(10L, stats.getConnections().get(0).getMessagesSent());
+        assertEquals(1L, stats.getConnections().get(0).getSessionsOpened());
+    }
+
+    @Test
+    void retriesAConnectionTheRelayTurnedAway() throws Exception {
+        server.rejectNextConnections(1);
+
+        sendAll("m1");
+
+        assertEquals(2, server.connections());
+        assertEquals(1, server.messages().size());
+    }
+
+    @Test
+    void reconnectsAfterTheRelayDropsAnIdleConnection() throws Exception {
+        sendAll("m1");
+        server.dropConnections();
+        Thread.sleep(50);
+
+        sendAll("m2");
+
+        assertEquals(2, server.connections());
+        assertEquals(2, server.messages().size());
+    }
+
+    @Test
+    void doesNotResendAMessageTheRelayMayHaveAccepted() throws Exception {
+        server.dropAfterNextData(1);
+
+        assertThrows(MessagingException.class, () -> sendAll("m1"));
+        assertEquals(1, server.messages().size());
+
+        sendAll("m2");
+
+        assertEquals(2, server.messages().size());
+        assertTrue(server.messages().get(0).contains("Subject: m1"));
+        assertTrue(server.messages().get(1).contains("Subject: m2"));
+        assertEquals(1L, pool.getStats(10).getConnections().get(0).getFailures());
+    }
+}
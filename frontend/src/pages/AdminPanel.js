@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { toast } from 'react-toastify';
-import { getAllSchemes, createScheme, updateScheme, deleteScheme } from '../services/api';
+import { getAllSchemes, createScheme, updateScheme, deleteScheme, importSchemes, exportSchemes } from '../services/api';
 
 const AdminPanel = () => {
   const [schemes, setSchemes] = useState([]);
@@ -147,6 +147,41 @@ const AdminPanel = () => {
     }
   };
 
+  const handleImport = async (e) => {
+    const file = e.target.files[0];
+    e.target.value = '';
+    if (!file) {
+      return;
+    }
+    try {
+      const format = file.name.toLowerCase().endsWith('.csv') ? 'csv' : 'ndjson';
+      const { data } = await importSchemes(file, format);
+      if (data.failed > 0) {
+        const first = data.errors[0];
+        toast.warning(`Imported ${data.created + data.updated} schemes, ${data.failed} failed (line ${first.line}: ${first.error})`);
+      } else {
+        toast.success(`Imported ${data.created + data.updated} schemes`);
+      }
+      fetchSchemes();
+    } catch (error) {
+      toast.error(error.response?.data?.error || 'Failed to import schemes');
+    }
+  };
+
+  const handleExport = async (format) => {
+    try {
+      const response = await exportSchemes(format);
+      const url = window.URL.createObjectURL(response.data);
+      const link = document.createElement('a');
+      link.href = url;
+      link.download = `schemes.${format}`;
+      link.click();
+      window.URL.revokeObjectURL(url);
+    } catch (error) {
+      toast.error('Failed to export schemes');
+    }
+  };
+
   if (loading) {
     return <div className="loading">Loading schemes...</div>;
   }
@@ -161,9 +196,17 @@ const AdminPanel = () => {
       <div className="container">
         <div style={{ display: 'flex', justifyContent: 'space-between', marginBottom: '2rem' }}>
           <h2>All Schemes ({schemes.length})</h2>
-          <button onClick={() => setShowForm(!showForm)} className="btn btn-primary">
-            {showForm ? 'Cancel' : '+ Add New Scheme'}
-          </button>
+          <div style={{ display: 'flex', gap: '0.5rem' }}>
+            <label className="btn btn-secondary">
+              Import
+              <input type="file" accept=".csv,.ndjson,.jsonl" onChange={handleImport} style={{ display: 'none' }} />
+            </label>
+            <button onClick={() => handleExport('csv')} className="btn btn-secondary">Export CSV</button>
+            <button onClick={() => handleExport('ndjson')} className="btn btn-secondary">Export NDJSON</button>
+            <button onClick={() => setShowForm(!showForm)} className="btn btn-primary">
+              {showForm ? 'Cancel' : '+ Add New Scheme'}
+            </button>
+          </div>
         </div>
 
         {showForm && (
@@ -1,13 +1,21 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { Link } from 'react-router-dom';
 import { toast } from 'react-toastify';
-import { getAllSchemes } from '../services/api';
+import { filterSchemes } from '../services/api';
 import './AllSchemes.css';
 
+// Cards fetched per request; more are appended with "Load more"
+const PAGE_SIZE = 60;
+
 const AllSchemes = () => {
-  const [allSchemes, setAllSchemes] = useState([]);
   const [filteredSchemes, setFilteredSchemes] = useState([]);
+  const [total, setTotal] = useState(0);
+  const [catalogSize, setCatalogSize] = useState(null);
+  const [facets, setFacets] = useState({});
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
+  // Bumped by every new filter, so a late "Load more" page is not appended to other results
+  const filterGeneration = useRef(0);
   
   // Filter states
   const [searchTerm, setSearchTerm] = useState('');
@@ -26,18 +34,35 @@ const AllSchemes = () => {
   const occupations = ['All', 'Farmer', 'Student', 'Government Employee', 'Private Employee', 'Self Employed', 'Business Owner', 'Unemployed'];
 
   useEffect(() => {
-    fetchAllSchemes();
-  }, []);
+    // Debounce so typing in the search box sends one request per pause, not per keystroke
+    const timer = setTimeout(fetchFilteredSchemes, searchTerm ? 250 : 0);
+    return () => clearTimeout(timer);
+  }, [searchTerm, selectedCategory, selectedState, selectedGender, selectedOccupation, minAge, maxAge, maxIncome]);
 
-  useEffect(() => {
-    applyFilters();
-  }, [allSchemes, searchTerm, selectedCategory, selectedState, selectedGender, selectedOccupation, minAge, maxAge, maxIncome]);
+  const currentFilter = (offset) => ({
+    query: searchTerm || null,
+    category: selectedCategory,
+    state: selectedState,
+    gender: selectedGender,
+    occupation: selectedOccupation,
+    minAge: minAge ? parseInt(minAge) : null,
+    maxAge: maxAge ? parseInt(maxAge) : null,
+    annualIncome: maxIncome ? parseFloat(maxIncome) : null,
+    limit: PAGE_SIZE,
+    offset
+  });
 
-  const fetchAllSchemes = async () => {
+  const fetchFilteredSchemes = async () => {
+    const generation = ++filterGeneration.current;
     try {
-      const response = await getAllSchemes();
-      setAllSchemes(response.data);
-      setFilteredSchemes(response.data);
+      const response = await filterSchemes(currentFilter(0));
+      if (generation !== filterGeneration.current) return;
+      setFilteredSchemes(response.data.schemes);
+      setTotal(response.data.total);
+      setFacets(response.data.facets);
+      if (catalogSize === null) {
+        setCatalogSize(response.data.total);
+      }
       setLoading(false);
     } catch (error) {
       toast.error('Failed to fetch schemes');
@@ -45,67 +70,25 @@ const AllSchemes = () => {
     }
   };
 
-  const applyFilters = () => {
-    let filtered = [...allSchemes];
-
-    // Search filter
-    if (searchTerm) {
-      filtered = filtered.filter(scheme =>
-        scheme.name.toLowerCase().includes(searchTerm.toLowerCase()) ||
-        scheme.description.toLowerCase().includes(searchTerm.toLowerCase())
-      );
-    }
-
-    // Category filter
-    if (selectedCategory !== 'All') {
-      filtered = filtered.filter(scheme => scheme.category === selectedCategory);
-    }
-
-    // State filter
-    if (selectedState !== 'All') {
-      filtered = filtered.filter(scheme =>
-        scheme.eligibleStates.includes('All') ||
-        scheme.eligibleStates.includes(selectedState)
-      );
-    }
-
-    // Gender filter
-    if (selectedGender !== 'All') {
-      filtered = filtered.filter(scheme =>
-        scheme.eligibleGenders.includes('All') ||
-        scheme.eligibleGenders.includes(selectedGender)
-      );
-    }
-
-    // Occupation filter
-    if (selectedOccupation !== 'All') {
-      filtered = filtered.filter(scheme =>
-        !scheme.eligibleOccupations || 
-        scheme.eligibleOccupations.length === 0 ||
-        scheme.eligibleOccupations.includes(selectedOccupation)
-      );
-    }
-
-    // Age filter - FIX: Check if user's age is within scheme's range
-    if (minAge) {
-      filtered = filtered.filter(scheme =>
-        !scheme.maxAge || parseInt(minAge) <= scheme.maxAge
-      );
-    }
-    if (maxAge) {
-      filtered = filtered.filter(scheme =>
-        !scheme.minAge || parseInt(maxAge) >= scheme.minAge
-      );
-    }
-
-    // Income filter - FIX: Check if user's income is below scheme's max
-    if (maxIncome) {
-      filtered = filtered.filter(scheme =>
-        !scheme.maxIncome || parseFloat(maxIncome) <= scheme.maxIncome
-      );
+  const loadMore = async () => {
+    const generation = filterGeneration.current;
+    setLoadingMore(true);
+    try {
+      const response = await filterSchemes(currentFilter(filteredSchemes.length));
+      if (generation === filterGeneration.current) {
+        setFilteredSchemes(previous => [...previous, ...response.data.schemes]);
+        setTotal(response.data.total);
+      }
+    } catch (error) {
+      toast.error('Failed to fetch schemes');
+    } finally {
+      setLoadingMore(false);
     }
+  };
 
-    setFilteredSchemes(filtered);
+  const facetLabel = (facet, value) => {
+    if (value === 'All' || !facets[facet]) return value;
+    return `${value} (${facets[facet][value] || 0})`;
   };
 
   const resetFilters = () => {
@@ -133,7 +116,7 @@ const AllSchemes = () => {
       {/* Header */}
       <div className="schemes-header-clean">
         <h1>Browse All Government Schemes</h1>
-        <p>Explore {allSchemes.length} schemes available across India</p>
+        <p>Explore {catalogSize || 0} schemes available across India</p>
       </div>
 
       <div className="schemes-container-clean">
@@ -170,7 +153,7 @@ const AllSchemes = () => {
                 <label>Category</label>
                 <select value={selectedCategory} onChange={(e) => setSelectedCategory(e.target.value)}>
                   {categories.map(cat => (
-                    <option key={cat} value={cat}>{cat}</option>
+                    <option key={cat} value={cat}>{facetLabel('category', cat)}</option>
                   ))}
                 </select>
               </div>
@@ -180,7 +163,7 @@ const AllSchemes = () => {
                 <label>State</label>
                 <select value={selectedState} onChange={(e) => setSelectedState(e.target.value)}>
                   {states.map(state => (
-                    <option key={state} value={state}>{state}</option>
+                    <option key={state} value={state}>{facetLabel('state', state)}</option>
                   ))}
                 </select>
               </div>
@@ -200,7 +183,7 @@ const AllSchemes = () => {
                 <label>Occupation</label>
                 <select value={selectedOccupation} onChange={(e) => setSelectedOccupation(e.target.value)}>
                   {occupations.map(occ => (
-                    <option key={occ} value={occ}>{occ}</option>
+                    <option key={occ} value={occ}>{facetLabel('occupation', occ)}</option>
                   ))}
                 </select>
               </div>
@@ -248,14 +231,14 @@ const AllSchemes = () => {
         {/* Results Count */}
         <div className="results-header-clean">
           <h2>
-            {filteredSchemes.length === allSchemes.length
-              ? `All Schemes (${allSchemes.length})`
-              : `Showing ${filteredSchemes.length} of ${allSchemes.length} schemes`}
+            {total === catalogSize
+              ? `All Schemes (${total})`
+              : `Showing ${total} of ${catalogSize} schemes`}
           </h2>
         </div>
 
         {/* Schemes Display */}
-        {filteredSchemes.length === 0 ? (
+        {total === 0 ? (
           <div className="no-results-clean">
             <h3>No schemes found</h3>
             <p>Try adjusting your filters</p>
@@ -270,7 +253,7 @@ const AllSchemes = () => {
                 <div className="scheme-category-clean">{scheme.category}</div>
                 <h3 className="scheme-title-clean">{scheme.name}</h3>
                 <p className="scheme-desc-clean">
-                  {scheme.shortDescription || scheme.description.substring(0, 120)}...
+                  {scheme.shortDescription}
                 </p>
 
                 {scheme.benefits && scheme.benefits.length > 0 && (
@@ -312,6 +295,14 @@ const AllSchemes = () => {
             ))}
           </div>
         )}
+
+        {filteredSchemes.length < total && (
+          <div className="load-more-clean">
+            <button className="btn-reset-clean" onClick={loadMore} disabled={loadingMore}>
+              {loadingMore ? 'Loading...' : `Load more (${total - filteredSchemes.length} remaining)`}
+            </button>
+          </div>
+        )}
       </div>
     </div>
   );
@@ -1,6 +1,6 @@
 import React, { useState, useEffect, useRef } from 'react';
 import { useNavigate } from 'react-router-dom';
-import { getAllSchemes } from '../services/api';
+import { filterSchemes } from '../services/api';
 import './Chatbot.css';
 
 const Chatbot = () => {
@@ -16,7 +16,6 @@ const Chatbot = () => {
     occupation: null
   });
   const [matchingSchemes, setMatchingSchemes] = useState([]);
-  const [allSchemes, setAllSchemes] = useState([]);
   const messagesEndRef = useRef(null);
 
   const states = ['Andhra Pradesh', 'Karnataka', 'Maharashtra', 'Tamil Nadu', 'Uttar Pradesh', 'West Bengal', 'Gujarat', 'Rajasthan', 'Kerala', 'Haryana'];
@@ -24,7 +23,6 @@ const Chatbot = () => {
   const occupations = ['Farmer', 'Student', 'Government Employee', 'Private Employee', 'Self Employed', 'Business Owner', 'Unemployed', 'Daily Wage Worker'];
 
   useEffect(() => {
-    fetchSchemes();
     startConversation();
   }, []);
 
@@ -36,15 +34,6 @@ const Chatbot = () => {
     messagesEndRef.current?.scrollIntoView({ behavior: 'smooth' });
   };
 
-  const fetchSchemes = async () => {
-    try {
-      const response = await getAllSchemes();
-      setAllSchemes(response.data);
-    } catch (error) {
-      console.error('Failed to fetch schemes');
-    }
-  };
-
   const addMessage = (text, sender, options = null) => {
     const newMessage = {
       id: Date.now(),
@@ -112,8 +101,8 @@ const Chatbot = () => {
     
     await typeMessage("Analyzing your eligibility... 🔍", 'bot', null, 500);
     
-    // Filter matching schemes
-    const matches = filterSchemes(finalProfile);
+    // Eligibility is evaluated on the server
+    const matches = await findMatchingSchemes(finalProfile);
     setMatchingSchemes(matches);
     
     await typeMessage(
@@ -140,31 +129,30 @@ const Chatbot = () => {
     }
   };
 
-  const filterSchemes = (profile) => {
-    return allSchemes.filter(scheme => {
-      // Age check
-      if (scheme.minAge && profile.age < scheme.minAge) return false;
-      if (scheme.maxAge && profile.age > scheme.maxAge) return false;
-      
-      // Income check
-      if (scheme.maxIncome && profile.income > scheme.maxIncome) return false;
-      
-      // State check
-      if (scheme.eligibleStates && scheme.eligibleStates.length > 0 &&
-          !scheme.eligibleStates.includes('All') &&
-          !scheme.eligibleStates.includes(profile.state)) return false;
-      
-      // Category check
-      if (scheme.eligibleCategories && scheme.eligibleCategories.length > 0 &&
-          !scheme.eligibleCategories.includes('All') &&
-          !scheme.eligibleCategories.includes(profile.category)) return false;
-      
-      // Occupation check
-      if (scheme.eligibleOccupations && scheme.eligibleOccupations.length > 0 &&
-          !scheme.eligibleOccupations.includes(profile.occupation)) return false;
-      
-      return true;
-    });
+  // Pages through every match: the results page and the document checklist need all of them
+  const findMatchingSchemes = async (profile) => {
+    try {
+      const matches = [];
+      let total = 0;
+      do {
+        const response = await filterSchemes({
+          age: profile.age,
+          state: profile.state,
+          socialCategory: profile.category,
+          annualIncome: profile.income,
+          occupation: profile.occupation,
+          limit: 500,
+          offset: matches.length
+        });
+        total = response.data.total;
+        if (response.data.schemes.length === 0) break;
+        matches.push(...response.data.schemes);
+      } while (matches.length < total);
+      return matches;
+    } catch (error) {
+      console.error('Failed to fetch schemes');
+      return [];
+    }
   };
 
   const handleViewSchemes = () => {
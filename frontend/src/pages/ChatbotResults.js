@@ -48,7 +48,7 @@ const ChatbotResults = () => {
             <h3 className="scheme-title-result">{scheme.name}</h3>
 
             <p className="scheme-desc-result">
-              {scheme.shortDescription || scheme.description.substring(0, 120)}...
+              {scheme.shortDescription}
             </p>
 
             {scheme.benefits && scheme.benefits.length > 0 && (
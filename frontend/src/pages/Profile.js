@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { toast } from 'react-toastify';
-import { getUserById, updateUser } from '../services/api';
+import { getUserById, patchUser } from '../services/api';
 
 const Profile = () => {
   const [user, setUser] = useState(null);
@@ -52,15 +52,22 @@ const Profile = () => {
         occupation: user.occupation,
         annualIncome: parseFloat(user.annualIncome),
         category: user.category,
-        gender: user.gender
+        gender: user.gender,
+        version: user.version
       };
       
-      await updateUser(userId, updateData);
+      const response = await patchUser(userId, updateData);
+      setUser({ ...user, ...response.data });
       toast.success('Profile updated successfully!');
       setEditing(false);
       localStorage.setItem('userName', `${user.firstName} ${user.lastName}`);
     } catch (error) {
-      toast.error('Failed to update profile');
+      if (error.response?.status === 409) {
+        toast.error(error.response.data.error);
+        fetchUserDetails();
+      } else {
+        toast.error('Failed to update profile');
+      }
     }
   };
 
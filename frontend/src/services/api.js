@@ -32,17 +32,25 @@ export const resendOtp = (email) => api.post('/auth/resend-otp', { email });
 // User APIs
 export const getUserById = (id) => api.get(`/users/${id}`);
 export const updateUser = (id, userData) => api.put(`/users/${id}`, userData);
+export const patchUser = (id, changes) => api.patch(`/users/${id}`, changes);
 
 // Scheme APIs
 export const getAllSchemes = () => api.get('/schemes/public/all');
+export const listSchemes = (params = {}) => api.get('/schemes/public/list', { params });
 export const getSchemeById = (id) => api.get(`/schemes/public/${id}`);
 export const getEligibleSchemes = (userId) => api.get(`/schemes/eligible/${userId}`);
 export const getSchemesByCategory = (category) => api.get(`/schemes/public/category/${category}`);
 export const searchSchemes = (query) => api.get(`/schemes/public/search?query=${query}`);
+export const filterSchemes = (filter) => api.post('/schemes/public/filter', filter);
+export const suggestSchemes = (prefix, limit = 10) => api.get('/schemes/public/suggest', { params: { prefix, limit } });
+export const getCatalogChanges = (since = 0) => api.get('/schemes/public/changes', { params: { since } });
 
 // Admin APIs
 export const createScheme = (schemeData) => api.post('/schemes/admin/create', schemeData);
 export const updateScheme = (id, schemeData) => api.put(`/schemes/admin/update/${id}`, schemeData);
 export const deleteScheme = (id) => api.delete(`/schemes/admin/delete/${id}`);
+export const importSchemes = (file, format) =>
+  api.post('/schemes/admin/import', file, { params: { format }, headers: { 'Content-Type': format === 'csv' ? 'text/csv' : 'application/x-ndjson' } });
+export const exportSchemes = (format) => api.get('/schemes/admin/export', { params: { format }, responseType: 'blob' });
 
 export default api;